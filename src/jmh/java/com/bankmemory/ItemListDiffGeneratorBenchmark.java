@@ -0,0 +1,74 @@
+package com.bankmemory;
+
+import com.bankmemory.data.BankItem;
+import com.bankmemory.data.BankItemList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Diffing two 1,000 item banks with the sort-merge diff, compared with the map based diff used before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemListDiffGeneratorBenchmark {
+    private static final int ITEMS_PER_BANK = 1000;
+
+    private final ItemListDiffGenerator diffGenerator = new ItemListDiffGenerator();
+    private BankItemList before;
+    private BankItemList after;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        before = createBank(random);
+        after = changed(before, random);
+    }
+
+    @Benchmark
+    public List<BankItem> maps() {
+        return ItemListDiffGeneratorEquivalenceTest.findDifferencesWithMaps(before, after);
+    }
+
+    @Benchmark
+    public List<BankItem> sortMerge() {
+        return diffGenerator.findDifferencesBetween(before, after);
+    }
+
+    private static BankItemList createBank(Random random) {
+        BankItemList.Builder items = BankItemList.builderWithExpectedSize(ITEMS_PER_BANK);
+        for (int i = 0; i < ITEMS_PER_BANK; i++) {
+            // Unique IDs, in no particular order, like a real bank
+            items.add((i * 7919) % 30000, 1 + random.nextInt(100000));
+        }
+        return items.build();
+    }
+
+    private static BankItemList changed(BankItemList bank, Random random) {
+        List<BankItem> items = new ArrayList<>(bank);
+        for (int i = 0; i < 20; i++) {
+            int index = random.nextInt(items.size());
+            items.set(index, new BankItem(items.get(index).getItemId(), random.nextInt(1000)));
+        }
+        for (int i = 0; i < 10; i++) {
+            items.remove(random.nextInt(items.size()));
+            items.add(random.nextInt(items.size()), new BankItem(30000 + i, 1));
+        }
+        return BankItemList.copyOf(items);
+    }
+}
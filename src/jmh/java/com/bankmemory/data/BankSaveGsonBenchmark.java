@@ -0,0 +1,97 @@
+package com.bankmemory.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading and writing a list of bank saves with the streaming BankSave adapter, compared with reflection and the JSON
+ * tree based item data (de)serialiser used before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BankSaveGsonBenchmark {
+    private static final Type SAVE_LIST_TYPE = new TypeToken<List<BankSave>>() {}.getType();
+
+    @Param({"100", "500"})
+    private int saveCount;
+
+    private List<BankSave> saves;
+    private String json;
+    private Gson reflective;
+    private Gson streaming;
+
+    @Setup
+    public void setUp() {
+        saves = createSaves(saveCount);
+        Function<String, String> itemDataLoader = hash -> {
+            throw new AssertionError("Item data isn't loaded when reading saves");
+        };
+        reflective = new GsonBuilder()
+                .registerTypeAdapter(LazyItemData.class, (JsonSerializer<LazyItemData>)
+                        (src, t, c) -> new JsonPrimitive("h:" + src.getContentHash()))
+                .registerTypeAdapter(LazyItemData.class, (JsonDeserializer<LazyItemData>)
+                        (json, t, c) -> LazyItemData.ofContentHash(json.getAsString().substring(2), itemDataLoader))
+                .create();
+        streaming = new GsonBuilder()
+                .registerTypeAdapter(BankSave.class, new BankSaveTypeAdapter(new ItemDataParser(itemDataLoader)))
+                .create();
+        json = streaming.toJson(saves);
+    }
+
+    @Benchmark
+    public List<BankSave> reflectiveRead() {
+        return reflective.fromJson(json, SAVE_LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<BankSave> streamingRead() {
+        return streaming.fromJson(json, SAVE_LIST_TYPE);
+    }
+
+    @Benchmark
+    public String reflectiveWrite() {
+        return reflective.toJson(saves);
+    }
+
+    @Benchmark
+    public String streamingWrite() {
+        return streaming.toJson(saves);
+    }
+
+    private static List<BankSave> createSaves(int count) {
+        Random random = new Random(1);
+        List<BankSave> saves = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ImmutableList<BankItem> items = ImmutableList.of(new BankItem(random.nextInt(30000), random.nextInt(1000)));
+            BankSave save = BankSave.fromHistory(BankWorldType.DEFAULT, "acc" + (i % 5), random.nextLong(), items);
+            saves.add(i % 2 == 0 ? save : BankSave.snapshotFromExistingBank("Snapshot " + i, save));
+        }
+        return saves;
+    }
+}
@@ -1,16 +1,21 @@
 package com.bankmemory;
 
 import com.bankmemory.data.BankSave;
+import java.time.Duration;
+import javax.annotation.Nullable;
 import lombok.ToString;
 import lombok.Value;
 
 @Value
 public class BankDiffListOption {
     enum Type {
-        CURRENT, SNAPSHOT
+        CURRENT, HISTORY, SNAPSHOT
     }
 
     String listText;
     Type bankType;
+    // For history options, this is the account's current bank
     @ToString.Exclude BankSave save;
+    // How long ago the bank should be as of, for history options
+    @Nullable Duration historyAge;
 }
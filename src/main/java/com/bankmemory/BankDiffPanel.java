@@ -1,6 +1,7 @@
 package com.bankmemory;
 
 import com.bankmemory.bankview.BankViewPanel;
+import com.bankmemory.bankview.ItemListChanges;
 import com.bankmemory.bankview.ItemListEntry;
 import com.bankmemory.data.BankWorldType;
 import com.google.common.collect.ArrayListMultimap;
@@ -39,6 +40,7 @@ public class BankDiffPanel extends JPanel {
     private static final Icon REVERSE_ICON;
     private static final Icon REVERSE_ICON_HOVER;
     private static final String CURRENT_BANKS = "- Current banks -";
+    private static final String HISTORY_BANKS = "- Bank history -";
     private static final String SNAPSHOT_BANKS = "- Snapshots -";
 
     private final BankViewPanel itemsList = new BankViewPanel();
@@ -116,12 +118,19 @@ public class BankDiffPanel extends JPanel {
         comboBoxSelectionChanged();
     }
 
-    void displayBankOptions(List<BankDiffListOption> currentBanks, List<BankDiffListOption> snapshotBanks) {
+    void displayBankOptions(
+            List<BankDiffListOption> currentBanks,
+            List<BankDiffListOption> historyBanks,
+            List<BankDiffListOption> snapshotBanks) {
         List<Object> options = new ArrayList<>();
         if (!currentBanks.isEmpty()) {
             options.add(CURRENT_BANKS);
             options.addAll(listWithWorldSeparators(currentBanks));
         }
+        if (!historyBanks.isEmpty()) {
+            options.add(HISTORY_BANKS);
+            options.addAll(listWithWorldSeparators(historyBanks));
+        }
         if (!snapshotBanks.isEmpty()) {
             options.add(SNAPSHOT_BANKS);
             options.addAll(listWithWorldSeparators(snapshotBanks));
@@ -162,6 +171,10 @@ public class BankDiffPanel extends JPanel {
         itemsList.displayItemListings(items, keepListPosition);
     }
 
+    void updateItems(ItemListChanges changes) {
+        itemsList.updateItemListings(changes);
+    }
+
     public void resetSelectionsAndItemList() {
         beforeOptionsModel.setSelectedItem(null);
         afterOptionsModel.setSelectedItem(null);
@@ -205,7 +218,7 @@ public class BankDiffPanel extends JPanel {
             Font font = FontManager.getRunescapeFont();
             Color fgColour = comp.getForeground();
             if (!(value instanceof BankDiffListOption)) {
-                if (value == CURRENT_BANKS || value == SNAPSHOT_BANKS) {
+                if (value == CURRENT_BANKS || value == HISTORY_BANKS || value == SNAPSHOT_BANKS) {
                     font = FontManager.getRunescapeBoldFont();
                 } else {
                     font = FontManager.getRunescapeSmallFont().deriveFont(Font.ITALIC);
@@ -1,17 +1,31 @@
 package com.bankmemory;
 
 import com.bankmemory.BankDiffListOption.Type;
+import com.bankmemory.bankview.ItemListChanges;
 import com.bankmemory.bankview.ItemListEntry;
 import com.bankmemory.data.AbstractDataStoreUpdateListener;
 import com.bankmemory.data.BankItem;
+import com.bankmemory.data.BankItemList;
 import com.bankmemory.data.BankSave;
 import com.bankmemory.data.DataStoreUpdateListener;
 import com.bankmemory.data.DisplayNameMapper;
 import com.bankmemory.data.PluginDataStore;
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.swing.SwingUtilities;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.ItemComposition;
@@ -21,23 +35,43 @@ import net.runelite.client.util.AsyncBufferedImage;
 
 @Slf4j
 public class BankDiffPanelController {
+    private static final Map<String, Duration> HISTORY_AGES = ImmutableMap.of(
+            "1 day ago", Duration.ofDays(1),
+            "1 week ago", Duration.ofDays(7),
+            "30 days ago", Duration.ofDays(30));
 
     @Inject private Client client;
     @Inject private ClientThread clientThread;
     @Inject private ItemManager itemManager;
     @Inject private PluginDataStore dataStore;
+    @Inject private ItemDiffCache diffCache;
     @Inject private ItemListDiffGenerator diffGenerator;
 
     private BankDiffPanel diffPanel;
     private DataUpdateListener dataListener;
     private BankDiffListOption lastBeforeSelection;
     private BankDiffListOption lastAfterSelection;
+    // Diffs are worked out off the EDT, one at a time. The generation is bumped whenever a new diff is asked for, so a
+    // diff that's been superseded by the time it's worked out (e.g. the user has picked another bank) isn't displayed
+    private final ExecutorService diffExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Bank Memory diff");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger diffGeneration = new AtomicInteger();
+    @Nullable private Future<?> pendingDiff;
+    // What the displayed differences are between, so they can be patched when a current bank changes. Null whilst a
+    // diff is being worked out
+    @Nullable private DisplayedDiff displayedDiff;
 
     public void startUp(BankDiffPanel diffPanel) {
         this.diffPanel = diffPanel;
         dataListener = new DataUpdateListener();
         diffPanel.setInteractionListener(this::userSelectedBankSaves);
-        diffPanel.addHierarchyListener(e -> diffPanel.resetSelectionsAndItemList());
+        diffPanel.addHierarchyListener(e -> {
+            supersedeDiffs();
+            diffPanel.resetSelectionsAndItemList();
+        });
         dataStore.addListener(dataListener);
         updateForLatestBankData(true);
     }
@@ -46,29 +80,35 @@ public class BankDiffPanelController {
         assert SwingUtilities.isEventDispatchThread();
 
         List<BankDiffListOption> currentBanks = new ArrayList<>();
+        List<BankDiffListOption> historyBanks = new ArrayList<>();
         List<BankDiffListOption> snapshotBanks = new ArrayList<>();
         DisplayNameMapper nameMapper = dataStore.getDisplayNameMapper();
 
         for (BankSave save : dataStore.getCurrentBanksList()) {
             String displayName = nameMapper.map(save.getAccountIdentifier());
-            currentBanks.add(new BankDiffListOption(displayName, Type.CURRENT, save));
+            currentBanks.add(new BankDiffListOption(displayName, Type.CURRENT, save, null));
+            HISTORY_AGES.forEach((ageText, age) ->
+                    historyBanks.add(new BankDiffListOption(displayName + ", " + ageText, Type.HISTORY, save, age)));
         }
         for (BankSave save : dataStore.getSnapshotBanksList()) {
-            snapshotBanks.add(new BankDiffListOption(save.getSaveName(), Type.SNAPSHOT, save));
+            snapshotBanks.add(new BankDiffListOption(save.getSaveName(), Type.SNAPSHOT, save, null));
         }
 
         // Always need to update the options list as even if the banks are the same then that means it's a display name change
-        diffPanel.displayBankOptions(currentBanks, snapshotBanks);
+        diffPanel.displayBankOptions(currentBanks, historyBanks, snapshotBanks);
 
-        BankDiffListOption equivalentBefore = findEquivalent(lastBeforeSelection, currentBanks, snapshotBanks);
-        BankDiffListOption equivalentAfter = findEquivalent(lastAfterSelection, currentBanks, snapshotBanks);
+        List<BankDiffListOption> accountBanks = new ArrayList<>(currentBanks);
+        accountBanks.addAll(historyBanks);
+        BankDiffListOption equivalentBefore = findEquivalent(lastBeforeSelection, accountBanks, snapshotBanks);
+        BankDiffListOption equivalentAfter = findEquivalent(lastAfterSelection, accountBanks, snapshotBanks);
         if (equivalentBefore != null && equivalentAfter != null) {
             diffPanel.setSelections(equivalentBefore, equivalentAfter);
 
             // NB: should only need to redo diff if current banks list change, not for snapshot banks list changing
             // (since if a snapshot save can be found again by its ID then it hasn't changed)
             if (currentBanksChanged && (
-                    equivalentBefore.getBankType() == Type.CURRENT || equivalentAfter.getBankType() == Type.CURRENT)) {
+                    equivalentBefore.getBankType() != Type.SNAPSHOT || equivalentAfter.getBankType() != Type.SNAPSHOT)
+                    && !patchDisplayedDiff(equivalentBefore, equivalentAfter)) {
                 displayDiffOfSaves(equivalentBefore, equivalentAfter, true);
             }
         }
@@ -76,14 +116,17 @@ public class BankDiffPanelController {
 
     private BankDiffListOption findEquivalent(
             BankDiffListOption old,
-            List<BankDiffListOption> currentBanks,
+            List<BankDiffListOption> accountBanks,
             List<BankDiffListOption> snapshots) {
         if (old == null) {
             return null;
         }
         switch (old.getBankType()) {
             case CURRENT:
-                return currentBanks.stream()
+            case HISTORY:
+                return accountBanks.stream()
+                        .filter(b -> old.getBankType() == b.getBankType()
+                                && Objects.equals(old.getHistoryAge(), b.getHistoryAge()))
                         .filter(b -> old.getSave().getAccountIdentifier().equalsIgnoreCase(b.getSave().getAccountIdentifier()))
                         .findAny().orElse(null);
             case SNAPSHOT:
@@ -104,34 +147,203 @@ public class BankDiffPanelController {
     private void displayDiffOfSaves(BankDiffListOption before, BankDiffListOption after, boolean keepListPosition) {
         assert SwingUtilities.isEventDispatchThread();
 
-        List<BankItem> differences = diffGenerator.findDifferencesBetween(
-                before.getSave().getItemData(), after.getSave().getItemData());
-        clientThread.invokeLater(() -> gatherItemDataToDisplay(differences, keepListPosition));
+        int generation = supersedeDiffs();
+        pendingDiff = diffExecutor.submit(() -> runDiffJob(generation, () -> {
+            BankSave beforeSave = getSaveToCompare(before);
+            BankSave afterSave = getSaveToCompare(after);
+            String beforeHash = contentHashOf(beforeSave);
+            String afterHash = contentHashOf(afterSave);
+            BankItemList differences = diffCache.findDifferencesBetween(
+                    beforeHash, itemDataOf(beforeSave), afterHash, itemDataOf(afterSave));
+            // History saves are looked up by time, so can change without the current bank changing
+            boolean patchable = before.getBankType() != Type.HISTORY && after.getBankType() != Type.HISTORY;
+            DisplayedDiff diff = patchable ? new DisplayedDiff(beforeSave, afterSave, differences) : null;
+            List<ItemListEntry> cachedEntries = diffCache.getEntries(beforeHash, afterHash);
+            if (cachedEntries != null) {
+                // Made for these differences not long ago, so no need to look the items up on the client thread again
+                runIfLatest(generation, () -> {
+                    diffPanel.displayItems(cachedEntries, keepListPosition);
+                    displayedDiff = diff;
+                });
+                return;
+            }
+            clientThread.invokeLater(() -> gatherItemDataToDisplay(
+                    generation, beforeHash, afterHash, differences, diff, keepListPosition));
+        }));
+    }
+
+    /**
+     * Updates the displayed differences for the banks' latest items by changing just the rows of items whose quantities
+     * changed (usually only one or two after a deposit or withdrawal), rather than working out and displaying them all
+     * again.
+     *
+     * @return whether the displayed differences can be patched
+     */
+    private boolean patchDisplayedDiff(BankDiffListOption before, BankDiffListOption after) {
+        assert SwingUtilities.isEventDispatchThread();
+
+        DisplayedDiff displayed = displayedDiff;
+        if (displayed == null || before.getBankType() == Type.HISTORY || after.getBankType() == Type.HISTORY) {
+            return false;
+        }
+        int generation = supersedeDiffs();
+        pendingDiff = diffExecutor.submit(() -> runDiffJob(generation, () -> {
+            Map<Integer, Integer> quantityChanges = new HashMap<>();
+            addQuantityChanges(quantityChanges, displayed.getAfterSave(), after.getSave(), 1);
+            addQuantityChanges(quantityChanges, displayed.getBeforeSave(), before.getSave(), -1);
+            ItemDiffPatch patch = ItemDiffPatch.create(displayed.getDifferences(), quantityChanges,
+                    before.getSave().getItemData(), after.getSave().getItemData());
+            if (patch == null) {
+                runIfLatest(generation, () -> displayDiffOfSaves(before, after, true));
+                return;
+            }
+            DisplayedDiff patched = new DisplayedDiff(before.getSave(), after.getSave(), patch.getPatchedDifferences());
+            if (patch.isEmpty()) {
+                runIfLatest(generation, () -> displayedDiff = patched);
+            } else {
+                clientThread.invokeLater(() -> gatherPatchToDisplay(generation, patch, patched));
+            }
+        }));
+        return true;
+    }
+
+    /**
+     * Stops any diff that's being worked out from being displayed, as something newer is going to be displayed instead.
+     *
+     * @return the generation of the diff to display next
+     */
+    private int supersedeDiffs() {
+        if (pendingDiff != null) {
+            pendingDiff.cancel(false);
+            pendingDiff = null;
+        }
+        // Not known what will be displayed until the next diff is
+        displayedDiff = null;
+        return diffGeneration.incrementAndGet();
+    }
+
+    private boolean isSuperseded(int generation) {
+        return generation != diffGeneration.get();
+    }
+
+    private void runDiffJob(int generation, Runnable job) {
+        if (isSuperseded(generation)) {
+            return;
+        }
+        try {
+            job.run();
+        } catch (RuntimeException ex) {
+            log.error("Failed to work out bank differences", ex);
+        }
+    }
+
+    /**
+     * Runs something on the EDT, as long as no newer diff has been asked for by then.
+     */
+    private void runIfLatest(int generation, Runnable runnable) {
+        SwingUtilities.invokeLater(() -> {
+            if (!isSuperseded(generation)) {
+                runnable.run();
+            }
+        });
+    }
+
+    private void addQuantityChanges(
+            Map<Integer, Integer> quantityChanges, BankSave oldSave, BankSave newSave, int sign) {
+        if (oldSave == newSave || oldSave.getItemDataContentHash().equals(newSave.getItemDataContentHash())) {
+            return;
+        }
+        BankItemList changes = diffGenerator.findDifferencesBetween(oldSave.getItemData(), newSave.getItemData());
+        for (int i = 0; i < changes.size(); i++) {
+            quantityChanges.merge(changes.getItemId(i), sign * changes.getQuantity(i), Integer::sum);
+        }
+    }
+
+    /**
+     * @return the save with the items the option stands for, or null if nothing is known about them
+     */
+    @Nullable
+    private BankSave getSaveToCompare(BankDiffListOption option) {
+        if (option.getBankType() != Type.HISTORY) {
+            return option.getSave();
+        }
+        BankSave currentBank = option.getSave();
+        long asOf = System.currentTimeMillis() - option.getHistoryAge().toMillis();
+        return dataStore.getBankAsOf(currentBank.getWorldType(), currentBank.getAccountIdentifier(), asOf)
+                // Nothing known about the bank that long ago
+                .orElse(null);
     }
 
-    private void gatherItemDataToDisplay(List<BankItem> differences, boolean keepListPosition) {
+    private static String contentHashOf(@Nullable BankSave save) {
+        return save == null ? "" : save.getItemDataContentHash();
+    }
+
+    private static BankItemList itemDataOf(@Nullable BankSave save) {
+        return save == null ? BankItemList.of() : save.getItemData();
+    }
+
+    private void gatherItemDataToDisplay(int generation, String beforeHash, String afterHash,
+            BankItemList differences, @Nullable DisplayedDiff diff, boolean keepListPosition) {
         assert client.isClientThread();
+        if (isSuperseded(generation)) {
+            return;
+        }
 
         List<ItemListEntry> items = new ArrayList<>();
 
         for (BankItem i : differences) {
-            ItemComposition ic = itemManager.getItemComposition(i.getItemId());
-            // Quantity num is painted by renderer, but still give quantity so item stacks show nicely
-            AsyncBufferedImage icon = itemManager.getImage(i.getItemId(), i.getQuantity(), false);
-            int geValue = itemManager.getItemPrice(i.getItemId()) * i.getQuantity();
-            int haValue = ic.getHaPrice() * i.getQuantity();
-            items.add(new ItemListEntry(ic.getName(), i.getQuantity(), icon, geValue, haValue));
+            items.add(createItemListEntry(i));
         }
+        diffCache.putEntries(beforeHash, afterHash, differences, items);
 
-        SwingUtilities.invokeLater(() -> diffPanel.displayItems(items, keepListPosition));
+        runIfLatest(generation, () -> {
+            diffPanel.displayItems(items, keepListPosition);
+            displayedDiff = diff;
+        });
+    }
+
+    private void gatherPatchToDisplay(int generation, ItemDiffPatch patch, DisplayedDiff patched) {
+        assert client.isClientThread();
+        if (isSuperseded(generation)) {
+            return;
+        }
+
+        Map<Integer, ItemListEntry> changedEntries = new HashMap<>();
+        patch.getChangedRows().forEach((row, item) -> changedEntries.put(row, createItemListEntry(item)));
+        Map<Integer, ItemListEntry> addedEntries = new LinkedHashMap<>();
+        patch.getAddedRows().forEach((row, item) -> addedEntries.put(row, createItemListEntry(item)));
+        ItemListChanges changes = new ItemListChanges(changedEntries, patch.getRemovedRows(), addedEntries);
+
+        runIfLatest(generation, () -> {
+            diffPanel.updateItems(changes);
+            displayedDiff = patched;
+        });
+    }
+
+    private ItemListEntry createItemListEntry(BankItem item) {
+        ItemComposition ic = itemManager.getItemComposition(item.getItemId());
+        // Quantity num is painted by renderer, but still give quantity so item stacks show nicely
+        AsyncBufferedImage icon = itemManager.getImage(item.getItemId(), item.getQuantity(), false);
+        int geValue = itemManager.getItemPrice(item.getItemId()) * item.getQuantity();
+        int haValue = ic.getHaPrice() * item.getQuantity();
+        return new ItemListEntry(ic.getName(), item.getQuantity(), icon, geValue, haValue);
     }
 
     public void shutDown() {
         dataStore.removeListener(dataListener);
+        supersedeDiffs();
+        diffExecutor.shutdownNow();
         lastBeforeSelection = null;
         lastAfterSelection = null;
     }
 
+    @Value
+    private static class DisplayedDiff {
+        BankSave beforeSave;
+        BankSave afterSave;
+        BankItemList differences;
+    }
+
     private class DataUpdateListener extends AbstractDataStoreUpdateListener {
         @Override
         public void currentBanksListChanged() {
@@ -17,4 +17,26 @@ public interface BankMemoryConfig extends Config {
     }
 
     void setTooltips(boolean tooltips);
+
+    @ConfigItem(
+            position = 2,
+            keyName = "storeDataInFile",
+            name = "Store data in own file",
+            description = "Store bank saves in a file in the RuneLite folder instead of the RuneLite settings, which is"
+                    + " quicker to save to but isn't synced with your RuneLite account. Applies after a client restart"
+    )
+    default boolean storeDataInFile() {
+        return false;
+    }
+
+    @ConfigItem(
+            position = 3,
+            keyName = "keepBankHistory",
+            name = "Keep bank history",
+            description = "Record changes to your banks, so you can look back at what was in them at any time. Only"
+                    + " the most recent few hundred changes of each account are kept"
+    )
+    default boolean keepBankHistory() {
+        return true;
+    }
 }
@@ -3,11 +3,14 @@ package com.bankmemory;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 
+import com.bankmemory.ItemCountsAcrossAccounts.ItemCounts;
+import com.bankmemory.data.AbstractDataStoreUpdateListener;
 import com.bankmemory.data.AccountIdentifier;
-import com.bankmemory.data.BankItem;
-import com.bankmemory.data.BankSave;
 import com.bankmemory.data.BankWorldType;
+import com.bankmemory.data.DataStoreUpdateListener;
 import com.bankmemory.data.PluginDataStore;
+import com.google.common.annotations.VisibleForTesting;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.InventoryID;
 import net.runelite.api.Item;
@@ -20,23 +23,86 @@ import net.runelite.client.ui.overlay.OverlayPriority;
 import net.runelite.client.ui.overlay.tooltip.Tooltip;
 import net.runelite.client.ui.overlay.tooltip.TooltipManager;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+@Slf4j
 public class BankMemoryItemOverlay extends Overlay {
     private final Client client;
     private final BankMemoryConfig config;
     private final TooltipManager tooltipManager;
     private final PluginDataStore dataStore;
+    private final DataStoreUpdateListener dataStoreListener = new DataStoreListener();
+    // Updated on its own thread when the current banks change, rather than going through every bank whilst rendering
+    private final ExecutorService itemCountsExecutor;
+    private volatile ItemCountsAcrossAccounts itemCounts = ItemCountsAcrossAccounts.EMPTY;
+    // Changed whenever the data shown in tooltips might have
+    private final AtomicInteger dataVersion = new AtomicInteger();
+
+    // Only used on the client thread, as that's where rendering happens
+    private int worldTypeWorld = -1;
+    @Nullable private BankWorldType worldType;
+    private boolean tooltipCached = false;
+    private int tooltipItemId;
+    private long tooltipAccountHash;
+    @Nullable private BankWorldType tooltipWorldType;
+    private int tooltipDataVersion;
+    @Nullable private Tooltip tooltip;
 
     @Inject
     BankMemoryItemOverlay(Client client, BankMemoryConfig config, TooltipManager tooltipManager, PluginDataStore dataStore) {
+        this(client, config, tooltipManager, dataStore, Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Bank Memory item counts");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    @VisibleForTesting
+    BankMemoryItemOverlay(
+            Client client,
+            BankMemoryConfig config,
+            TooltipManager tooltipManager,
+            PluginDataStore dataStore,
+            ExecutorService itemCountsExecutor) {
         setPosition(OverlayPosition.DYNAMIC);
         setPriority(OverlayPriority.HIGHEST);
         this.client = client;
         this.config = config;
         this.tooltipManager = tooltipManager;
         this.dataStore = dataStore;
+        this.itemCountsExecutor = itemCountsExecutor;
+    }
+
+    public void startUp() {
+        dataStore.addListener(dataStoreListener);
+        updateItemCounts();
+    }
+
+    public void shutDown() {
+        dataStore.removeListener(dataStoreListener);
+        // After any updates still waiting to run, so they can't bring the counts back
+        itemCountsExecutor.execute(() -> itemCounts = ItemCountsAcrossAccounts.EMPTY);
+    }
+
+    private void updateItemCounts() {
+        itemCountsExecutor.execute(() -> {
+            try {
+                // Only the banks that changed have their items looked at again
+                itemCounts = itemCounts.withCurrentBanks(
+                        dataStore.getCurrentBanksList(), dataStore.getDisplayNameMapper());
+            } catch (RuntimeException ex) {
+                log.error("Failed to count items across accounts", ex);
+                return;
+            }
+            // Only after the new data is in place, so a tooltip for the new version is never made with the old data
+            dataVersion.incrementAndGet();
+        });
     }
 
     @Override
@@ -67,24 +133,69 @@ public class BankMemoryItemOverlay extends Overlay {
             return null;
         }
 
-        String itemCountTooltipText = null;
+        // Hovering over the same item gives the same tooltip until something changes, so it's only worked out again then
+        int itemId = item.getId();
+        long accountHash = client.getAccountHash();
+        BankWorldType worldType = getWorldType();
+        int currentDataVersion = dataVersion.get();
+        if (!tooltipCached || itemId != tooltipItemId || accountHash != tooltipAccountHash
+                || worldType != tooltipWorldType || currentDataVersion != tooltipDataVersion) {
+            tooltip = createTooltip(worldType, AccountIdentifier.fromAccountHash(accountHash), itemId);
+            tooltipItemId = itemId;
+            tooltipAccountHash = accountHash;
+            tooltipWorldType = worldType;
+            tooltipDataVersion = currentDataVersion;
+            tooltipCached = true;
+        }
 
-        BankWorldType worldType = BankWorldType.forWorld(client.getWorldType());
-        String accountIdentifier = AccountIdentifier.fromAccountHash(client.getAccountHash());
-        Optional<BankSave> existingSave = dataStore.getDataForCurrentBank(worldType, accountIdentifier);
+        if (tooltip != null) {
+            tooltipManager.add(tooltip);
+        }
+        return null;
+    }
 
-        if (existingSave.isPresent()) {
-            for (BankItem bankItem : existingSave.get().getItemData()) {
-                if (bankItem.getItemId() == item.getId()) {
-                    itemCountTooltipText = "Banked: " + bankItem.getQuantity();
-                    break;
-                }
+    private BankWorldType getWorldType() {
+        int world = client.getWorld();
+        if (worldTypeWorld != world || worldType == null) {
+            worldType = BankWorldType.forWorld(client.getWorldType());
+            worldTypeWorld = world;
+        }
+        return worldType;
+    }
+
+    @Nullable
+    private Tooltip createTooltip(BankWorldType worldType, @Nullable String accountIdentifier, int itemId) {
+        ItemCounts counts = itemCounts.get(worldType, itemId);
+        if (counts == null) {
+            return null;
+        }
+
+        List<String> tooltipLines = new ArrayList<>();
+        List<String> otherAccountLines = new ArrayList<>();
+        for (int i = 0; i < counts.getAccountCount(); i++) {
+            if (counts.getAccountIdentifier(i).equalsIgnoreCase(accountIdentifier)) {
+                tooltipLines.add("Banked: " + counts.getQuantity(i));
+            } else {
+                otherAccountLines.add(counts.getDisplayName(i) + ": " + counts.getQuantity(i));
             }
         }
+        if (!otherAccountLines.isEmpty()) {
+            tooltipLines.addAll(otherAccountLines);
+            tooltipLines.add("Total: " + counts.getTotal());
+        }
+
+        return new Tooltip(String.join("</br>", tooltipLines));
+    }
 
-        if (itemCountTooltipText != null) {
-            tooltipManager.add(new Tooltip(itemCountTooltipText));
+    private class DataStoreListener extends AbstractDataStoreUpdateListener {
+        @Override
+        public void currentBanksListChanged() {
+            updateItemCounts();
+        }
+
+        @Override
+        public void displayNameMapUpdated() {
+            updateItemCounts();
         }
-        return null;
     }
 }
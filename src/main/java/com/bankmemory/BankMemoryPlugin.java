@@ -53,6 +53,7 @@ public class BankMemoryPlugin extends Plugin {
     private CurrentBankPanelController currentBankPanelController;
     private SavedBanksPanelController savedBanksPanelController;
     private BankDiffPanelController diffPanelController;
+    private BankTimelinePanelController timelinePanelController;
     private NavigationButton navButton;
     private boolean displayNameRegistered = false;
 
@@ -87,7 +88,10 @@ public class BankMemoryPlugin extends Plugin {
         savedBanksPanelController.startUp(pluginPanel.getSavedBanksTopPanel());
         diffPanelController = injector.getInstance(BankDiffPanelController.class);
         diffPanelController.startUp(pluginPanel.getSavedBanksTopPanel().getDiffPanel());
+        timelinePanelController = injector.getInstance(BankTimelinePanelController.class);
+        timelinePanelController.startUp(pluginPanel.getSavedBanksTopPanel().getTimelinePanel());
 
+        itemOverlay.startUp();
         overlayManager.add(itemOverlay);
     }
 
@@ -96,10 +100,14 @@ public class BankMemoryPlugin extends Plugin {
         clientToolbar.removeNavigation(navButton);
         savedBanksPanelController.shutDown();
         diffPanelController.shutDown();
+        timelinePanelController.shutDown();
         currentBankPanelController = null;
         savedBanksPanelController = null;
         diffPanelController = null;
+        timelinePanelController = null;
         overlayManager.remove(itemOverlay);
+        itemOverlay.shutDown();
+        dataStore.flushPendingWrites();
     }
 
     @Subscribe
@@ -27,6 +27,7 @@ public class BankSavesTopPanel extends JPanel {
     private final BanksListPanel banksListPanel = new BanksListPanel();
     private final BankViewPanel bankViewPanel = new BankViewPanel();
     private final BankDiffPanel bankDiffPanel = new BankDiffPanel();
+    private final BankTimelinePanel bankTimelinePanel = new BankTimelinePanel();
     private final JPanel backButtonAndTitle = new JPanel();
     private final JLabel subUiTitle = new JLabel();
 
@@ -78,6 +79,10 @@ public class BankSavesTopPanel extends JPanel {
         return bankDiffPanel;
     }
 
+    public BankTimelinePanel getTimelinePanel() {
+        return bankTimelinePanel;
+    }
+
     void showBankDiffPanel() {
         removeAll();
         subUiTitle.setText("Bank comparison");
@@ -86,4 +91,13 @@ public class BankSavesTopPanel extends JPanel {
         revalidate();
         repaint();
     }
+
+    void showBankTimelinePanel() {
+        removeAll();
+        subUiTitle.setText("Bank timeline");
+        add(backButtonAndTitle, BorderLayout.NORTH);
+        add(bankTimelinePanel, BorderLayout.CENTER);
+        revalidate();
+        repaint();
+    }
 }
@@ -0,0 +1,12 @@
+package com.bankmemory;
+
+import com.bankmemory.data.BankSave;
+import lombok.ToString;
+import lombok.Value;
+
+@Value
+public class BankTimelineAccountOption {
+    String listText;
+    // The account's current bank, which is the last bank in its timeline
+    @ToString.Exclude BankSave currentBank;
+}
@@ -0,0 +1,199 @@
+package com.bankmemory;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.util.List;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.ListCellRenderer;
+import javax.swing.SwingConstants;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.ui.components.TitleCaseListCellRenderer;
+
+import static com.bankmemory.util.Constants.PAD;
+
+/**
+ * Shows the quantity of every item in an account's snapshots, oldest first, and then its current bank.
+ */
+public class BankTimelinePanel extends JPanel {
+    private static final int ITEM_COLUMN_WIDTH = 120;
+    private static final int QUANTITY_COLUMN_WIDTH = 70;
+
+    private final DefaultComboBoxModel<BankTimelineAccountOption> accountOptionsModel = new DefaultComboBoxModel<>();
+    private final TimelineTableModel tableModel = new TimelineTableModel();
+    private final JTable table = new JTable(tableModel);
+    private BankTimelinePanelInteractionListener interactionListener;
+    private boolean disableSelectionListener = false;
+
+    BankTimelinePanel() {
+        super();
+        setLayout(new BorderLayout(0, PAD));
+        setBorder(BorderFactory.createEmptyBorder(PAD, 0, PAD, 0));
+
+        JPanel topPanel = new JPanel(new GridBagLayout());
+        GridBagConstraints c = new GridBagConstraints();
+        c.anchor = GridBagConstraints.WEST;
+        c.gridx = 0;
+        c.gridy = 0;
+        topPanel.add(new JLabel("Account"), c);
+        c.fill = GridBagConstraints.HORIZONTAL;
+        c.weightx = 1;
+        c.gridx = 1;
+        JComboBox<BankTimelineAccountOption> accountComboBox = new JComboBox<>(accountOptionsModel);
+        accountComboBox.setRenderer(new AccountOptionRenderer());
+        accountComboBox.addActionListener(a -> comboBoxSelectionChanged());
+        topPanel.add(accountComboBox, c);
+        add(topPanel, BorderLayout.NORTH);
+
+        // Too many banks to fit across the panel, so it scrolls sideways instead of squashing the columns
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        table.setAutoCreateRowSorter(true);
+        table.setFillsViewportHeight(true);
+        table.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        table.setFont(FontManager.getRunescapeSmallFont());
+        table.setDefaultRenderer(Integer.class, new QuantityRenderer());
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+
+    void setInteractionListener(BankTimelinePanelInteractionListener listener) {
+        interactionListener = listener;
+    }
+
+    private void comboBoxSelectionChanged() {
+        if (disableSelectionListener) {
+            return;
+        }
+        Object selected = accountOptionsModel.getSelectedItem();
+        if (selected != null) {
+            interactionListener.userSelectedAccount((BankTimelineAccountOption) selected);
+        }
+    }
+
+    void displayAccountOptions(List<BankTimelineAccountOption> accounts) {
+        disableSelectionListener = true;
+        accountOptionsModel.removeAllElements();
+        accounts.forEach(accountOptionsModel::addElement);
+        accountOptionsModel.setSelectedItem(null);
+        disableSelectionListener = false;
+    }
+
+    void setSelection(BankTimelineAccountOption account) {
+        disableSelectionListener = true;
+        accountOptionsModel.setSelectedItem(account);
+        disableSelectionListener = false;
+    }
+
+    /**
+     * @param bankNames  column name for each bank in the timeline
+     * @param itemNames  name of the item in each row of the timeline
+     */
+    void displayTimeline(List<String> bankNames, ItemTimeline timeline, List<String> itemNames) {
+        tableModel.setTimeline(bankNames, timeline, itemNames);
+        table.getColumnModel().getColumn(0).setPreferredWidth(ITEM_COLUMN_WIDTH);
+        for (int column = 1; column < tableModel.getColumnCount(); column++) {
+            table.getColumnModel().getColumn(column).setPreferredWidth(QUANTITY_COLUMN_WIDTH);
+        }
+        revalidate();
+        repaint();
+    }
+
+    public void resetSelectionAndTimeline() {
+        setSelection(null);
+        tableModel.setTimeline(List.of(), ItemTimeline.EMPTY, List.of());
+        revalidate();
+        repaint();
+    }
+
+    private static class TimelineTableModel extends AbstractTableModel {
+        private List<String> bankNames = List.of();
+        private ItemTimeline timeline = ItemTimeline.EMPTY;
+        private List<String> itemNames = List.of();
+
+        void setTimeline(List<String> bankNames, ItemTimeline timeline, List<String> itemNames) {
+            this.bankNames = bankNames;
+            this.timeline = timeline;
+            this.itemNames = itemNames;
+            fireTableStructureChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return timeline.getItemCount();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return bankNames.size() + 1;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return column == 0 ? "Item" : bankNames.get(column - 1);
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? String.class : Integer.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return column == 0 ? itemNames.get(row) : timeline.getQuantity(row, column - 1);
+        }
+    }
+
+    /**
+     * Colours quantities by whether there's more or less of the item than in the bank before.
+     */
+    private static class QuantityRenderer extends DefaultTableCellRenderer {
+        QuantityRenderer() {
+            setHorizontalAlignment(SwingConstants.RIGHT);
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(
+                JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            int quantity = (Integer) value;
+            int modelColumn = table.convertColumnIndexToModel(column);
+            Color colour = table.getForeground();
+            if (modelColumn > 1) {
+                int previous = (Integer) table.getModel().getValueAt(table.convertRowIndexToModel(row), modelColumn - 1);
+                if (quantity > previous) {
+                    colour = Color.GREEN;
+                } else if (quantity < previous) {
+                    colour = Color.RED;
+                }
+            }
+            setForeground(colour);
+            return this;
+        }
+    }
+
+    private static class AccountOptionRenderer implements ListCellRenderer<BankTimelineAccountOption> {
+        private final TitleCaseListCellRenderer wrapped = new TitleCaseListCellRenderer();
+
+        @Override
+        public Component getListCellRendererComponent(
+                JList<? extends BankTimelineAccountOption> list,
+                BankTimelineAccountOption value,
+                int index,
+                boolean isSelected,
+                boolean cellHasFocus) {
+            Object valToRender = value == null ? "" : value.getListText(); // else ComboBoxListRenderer breaks
+            return wrapped.getListCellRendererComponent(list, valToRender, index, isSelected, cellHasFocus);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.bankmemory;
+
+import com.bankmemory.data.AbstractDataStoreUpdateListener;
+import com.bankmemory.data.BankItem;
+import com.bankmemory.data.BankSave;
+import com.bankmemory.data.BankWorldType;
+import com.bankmemory.data.DisplayNameMapper;
+import com.bankmemory.data.PluginDataStore;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.swing.SwingUtilities;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.game.ItemManager;
+
+@Slf4j
+public class BankTimelinePanelController {
+    private static final String CURRENT_BANK_COLUMN = "Current";
+
+    @Inject private Client client;
+    @Inject private ClientThread clientThread;
+    @Inject private ItemManager itemManager;
+    @Inject private PluginDataStore dataStore;
+    @Inject private ItemTimelineGenerator timelineGenerator;
+
+    private BankTimelinePanel timelinePanel;
+    private DataUpdateListener dataListener;
+    private BankTimelineAccountOption lastSelection;
+    // Timelines are worked out off the EDT, and superseded ones dropped, the same as diffs in BankDiffPanelController
+    private final ExecutorService timelineExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Bank Memory timeline");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger timelineGeneration = new AtomicInteger();
+    @Nullable private Future<?> pendingTimeline;
+
+    public void startUp(BankTimelinePanel timelinePanel) {
+        this.timelinePanel = timelinePanel;
+        dataListener = new DataUpdateListener();
+        timelinePanel.setInteractionListener(this::userSelectedAccount);
+        timelinePanel.addHierarchyListener(e -> {
+            supersedeTimelines();
+            timelinePanel.resetSelectionAndTimeline();
+        });
+        dataStore.addListener(dataListener);
+        updateForLatestBankData();
+    }
+
+    private void updateForLatestBankData() {
+        assert SwingUtilities.isEventDispatchThread();
+
+        List<BankTimelineAccountOption> accounts = new ArrayList<>();
+        DisplayNameMapper nameMapper = dataStore.getDisplayNameMapper();
+        for (BankSave save : dataStore.getCurrentBanksList()) {
+            String displayName = nameMapper.map(save.getAccountIdentifier());
+            if (save.getWorldType() != BankWorldType.DEFAULT) {
+                displayName += " (" + save.getWorldType().getDisplayString() + ")";
+            }
+            accounts.add(new BankTimelineAccountOption(displayName, save));
+        }
+        timelinePanel.displayAccountOptions(accounts);
+
+        if (lastSelection == null) {
+            return;
+        }
+        BankSave lastBank = lastSelection.getCurrentBank();
+        accounts.stream()
+                .filter(a -> a.getCurrentBank().getWorldType() == lastBank.getWorldType()
+                        && a.getCurrentBank().getAccountIdentifier().equalsIgnoreCase(lastBank.getAccountIdentifier()))
+                .findAny()
+                .ifPresent(account -> {
+                    timelinePanel.setSelection(account);
+                    displayTimelineOf(account);
+                });
+    }
+
+    private void userSelectedAccount(BankTimelineAccountOption account) {
+        assert SwingUtilities.isEventDispatchThread();
+        lastSelection = account;
+        displayTimelineOf(account);
+    }
+
+    private void displayTimelineOf(BankTimelineAccountOption account) {
+        assert SwingUtilities.isEventDispatchThread();
+
+        int generation = supersedeTimelines();
+        BankSave currentBank = account.getCurrentBank();
+        pendingTimeline = timelineExecutor.submit(() -> {
+            if (isSuperseded(generation)) {
+                return;
+            }
+            try {
+                List<BankSave> saves = getSnapshotsOf(currentBank);
+                saves.add(currentBank);
+                List<List<BankItem>> banks = new ArrayList<>();
+                List<String> bankNames = new ArrayList<>();
+                for (BankSave save : saves) {
+                    banks.add(save.getItemData());
+                    bankNames.add(save == currentBank ? CURRENT_BANK_COLUMN : save.getSaveName());
+                }
+                ItemTimeline timeline = timelineGenerator.createTimeline(banks);
+                clientThread.invokeLater(() -> gatherItemNamesToDisplay(generation, bankNames, timeline));
+            } catch (RuntimeException ex) {
+                log.error("Failed to work out bank timeline", ex);
+            }
+        });
+    }
+
+    /**
+     * @return the snapshots of the same account as the current bank, oldest first
+     */
+    private List<BankSave> getSnapshotsOf(BankSave currentBank) {
+        // Timestamps of older saves are parsed from their date string, so each is only worked out once for the sort
+        List<BankSave> snapshots = new ArrayList<>();
+        Map<BankSave, Long> timestamps = new IdentityHashMap<>();
+        for (BankSave save : dataStore.getSnapshotBanksList()) {
+            if (save.getWorldType() == currentBank.getWorldType()
+                    && save.getAccountIdentifier().equalsIgnoreCase(currentBank.getAccountIdentifier())) {
+                snapshots.add(save);
+                timestamps.put(save, save.getTimestamp());
+            }
+        }
+        snapshots.sort(Comparator.comparingLong(timestamps::get));
+        return snapshots;
+    }
+
+    private void gatherItemNamesToDisplay(int generation, List<String> bankNames, ItemTimeline timeline) {
+        assert client.isClientThread();
+        if (isSuperseded(generation)) {
+            return;
+        }
+
+        List<String> itemNames = new ArrayList<>(timeline.getItemCount());
+        for (int row = 0; row < timeline.getItemCount(); row++) {
+            itemNames.add(itemManager.getItemComposition(timeline.getItemId(row)).getName());
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            if (!isSuperseded(generation)) {
+                timelinePanel.displayTimeline(bankNames, timeline, itemNames);
+            }
+        });
+    }
+
+    /**
+     * @return the generation of the timeline to display next
+     */
+    private int supersedeTimelines() {
+        if (pendingTimeline != null) {
+            pendingTimeline.cancel(false);
+            pendingTimeline = null;
+        }
+        return timelineGeneration.incrementAndGet();
+    }
+
+    private boolean isSuperseded(int generation) {
+        return generation != timelineGeneration.get();
+    }
+
+    public void shutDown() {
+        dataStore.removeListener(dataListener);
+        supersedeTimelines();
+        timelineExecutor.shutdownNow();
+        lastSelection = null;
+    }
+
+    private class DataUpdateListener extends AbstractDataStoreUpdateListener {
+        @Override
+        public void currentBanksListChanged() {
+            SwingUtilities.invokeLater(BankTimelinePanelController.this::updateForLatestBankData);
+        }
+
+        @Override
+        public void snapshotBanksListChanged() {
+            SwingUtilities.invokeLater(BankTimelinePanelController.this::updateForLatestBankData);
+        }
+
+        @Override
+        public void displayNameMapUpdated() {
+            SwingUtilities.invokeLater(BankTimelinePanelController.this::updateForLatestBankData);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.bankmemory;
+
+public interface BankTimelinePanelInteractionListener {
+    void userSelectedAccount(BankTimelineAccountOption account);
+}
@@ -10,4 +10,6 @@ public interface BanksListInteractionListener {
     void copyBankSaveItemDataToClipboard(BanksListEntry save);
 
     void openBanksDiffPanel();
+
+    void openBankTimelinePanel();
 }
@@ -7,6 +7,7 @@ import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.awt.GridLayout;
 import java.awt.MouseInfo;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
@@ -56,9 +57,14 @@ public class BanksListPanel extends JPanel {
         JScrollPane scrollPane = new JScrollPane(listWrapper);
         add(scrollPane, BorderLayout.CENTER);
 
+        JPanel buttonsPanel = new JPanel(new GridLayout(0, 1, 0, Constants.PAD / 2));
         JButton compareBanks = new JButton("Compare bank saves");
         compareBanks.addActionListener(a -> interactionListener.openBanksDiffPanel());
-        add(compareBanks, BorderLayout.SOUTH);
+        buttonsPanel.add(compareBanks);
+        JButton bankTimeline = new JButton("Bank timeline");
+        bankTimeline.addActionListener(a -> interactionListener.openBankTimelinePanel());
+        buttonsPanel.add(bankTimeline);
+        add(buttonsPanel, BorderLayout.SOUTH);
     }
 
     private JPopupMenu createContextMenu() {
@@ -0,0 +1,163 @@
+package com.bankmemory;
+
+import com.bankmemory.data.BankItemList;
+import com.bankmemory.data.BankSave;
+import com.bankmemory.data.BankWorldType;
+import com.bankmemory.data.DisplayNameMapper;
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import lombok.AllArgsConstructor;
+
+/**
+ * How many of each item is in the current bank of every account, and in all of them together, worked out whenever the
+ * current banks change so the item overlay can find an item's counts with a single lookup.
+ * <p>
+ * Making these means going through the items of every current bank, so it shouldn't be done on the client thread or
+ * the EDT. The items of banks that haven't changed are reused, so only changed banks are decoded again.
+ */
+class ItemCountsAcrossAccounts {
+    static final ItemCountsAcrossAccounts EMPTY = new ItemCountsAcrossAccounts(ImmutableList.of());
+
+    // In the order of the current banks list
+    private final ImmutableList<AccountItems> accounts;
+    private final Map<BankWorldType, Map<Integer, ItemCounts>> countsByWorldType = new EnumMap<>(BankWorldType.class);
+
+    private ItemCountsAcrossAccounts(ImmutableList<AccountItems> accounts) {
+        this.accounts = accounts;
+        Map<BankWorldType, Map<Integer, ItemCountsBuilder>> builders = new EnumMap<>(BankWorldType.class);
+        for (AccountItems account : accounts) {
+            Map<Integer, ItemCountsBuilder> worldTypeBuilders =
+                    builders.computeIfAbsent(account.save.getWorldType(), t -> new HashMap<>());
+            for (int i = 0; i < account.items.size(); i++) {
+                worldTypeBuilders.computeIfAbsent(account.items.getItemId(i), id -> new ItemCountsBuilder())
+                        .add(account, account.items.getQuantity(i));
+            }
+        }
+        builders.forEach((worldType, worldTypeBuilders) -> {
+            Map<Integer, ItemCounts> counts = new HashMap<>(worldTypeBuilders.size() * 4 / 3 + 1);
+            worldTypeBuilders.forEach((itemId, builder) -> counts.put(itemId, builder.build()));
+            countsByWorldType.put(worldType, counts);
+        });
+    }
+
+    static ItemCountsAcrossAccounts of(List<BankSave> currentBanks, DisplayNameMapper nameMapper) {
+        return EMPTY.withCurrentBanks(currentBanks, nameMapper);
+    }
+
+    /**
+     * @return the counts for the given current banks, reusing the items of the banks that haven't changed since these
+     */
+    ItemCountsAcrossAccounts withCurrentBanks(List<BankSave> currentBanks, DisplayNameMapper nameMapper) {
+        Map<BankSave, AccountItems> existing = new IdentityHashMap<>();
+        accounts.forEach(a -> existing.put(a.save, a));
+        ImmutableList.Builder<AccountItems> newAccounts = ImmutableList.builder();
+        for (BankSave save : currentBanks) {
+            String displayName = nameMapper.map(save.getAccountIdentifier());
+            AccountItems account = existing.get(save);
+            BankItemList items = account == null ? withQuantitiesSummed(save.getItemData()) : account.items;
+            newAccounts.add(new AccountItems(save, displayName, items));
+        }
+        return new ItemCountsAcrossAccounts(newAccounts.build());
+    }
+
+    /**
+     * @return the items with each item ID only once, so each account is only counted once for an item
+     */
+    private static BankItemList withQuantitiesSummed(BankItemList items) {
+        boolean hasDuplicates = false;
+        for (int i = 0; i < items.size() && !hasDuplicates; i++) {
+            hasDuplicates = items.indexOfItemId(items.getItemId(i)) != i;
+        }
+        if (!hasDuplicates) {
+            return items;
+        }
+        // Hardly ever happens, so no need to avoid boxing
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            quantities.merge(items.getItemId(i), items.getQuantity(i), Integer::sum);
+        }
+        BankItemList.Builder summed = BankItemList.builderWithExpectedSize(quantities.size());
+        quantities.forEach(summed::add);
+        return summed.build();
+    }
+
+    @Nullable
+    ItemCounts get(BankWorldType worldType, int itemId) {
+        Map<Integer, ItemCounts> counts = countsByWorldType.get(worldType);
+        return counts == null ? null : counts.get(itemId);
+    }
+
+    @AllArgsConstructor
+    private static class AccountItems {
+        final BankSave save;
+        final String displayName;
+        final BankItemList items;
+    }
+
+    private static class ItemCountsBuilder {
+        AccountItems[] accounts = new AccountItems[2];
+        int[] quantities = new int[2];
+        int size;
+
+        void add(AccountItems account, int quantity) {
+            if (size == accounts.length) {
+                accounts = Arrays.copyOf(accounts, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            accounts[size] = account;
+            quantities[size] = quantity;
+            size++;
+        }
+
+        ItemCounts build() {
+            String[] accountIdentifiers = new String[size];
+            String[] displayNames = new String[size];
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                accountIdentifiers[i] = accounts[i].save.getAccountIdentifier();
+                displayNames[i] = accounts[i].displayName;
+                total += quantities[i];
+            }
+            return new ItemCounts(accountIdentifiers, displayNames, Arrays.copyOf(quantities, size), total);
+        }
+    }
+
+    /**
+     * The accounts with an item in their current bank, in the order of the current banks list, how many of it they
+     * have and how many they have altogether.
+     */
+    @AllArgsConstructor
+    static class ItemCounts {
+        private final String[] accountIdentifiers;
+        private final String[] displayNames;
+        private final int[] quantities;
+        private final long total;
+
+        int getAccountCount() {
+            return accountIdentifiers.length;
+        }
+
+        String getAccountIdentifier(int index) {
+            return accountIdentifiers[index];
+        }
+
+        String getDisplayName(int index) {
+            return displayNames[index];
+        }
+
+        int getQuantity(int index) {
+            return quantities[index];
+        }
+
+        long getTotal() {
+            return total;
+        }
+    }
+}
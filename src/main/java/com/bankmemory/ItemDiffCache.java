@@ -0,0 +1,120 @@
+package com.bankmemory;
+
+import com.bankmemory.bankview.ItemListEntry;
+import com.bankmemory.data.BankItemList;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Remembers the differences between recently compared item data, by the content hashes of the item data, so comparing
+ * the same banks again (e.g. flipping between them in the diff panel) doesn't work them out again.
+ * <p>
+ * The differences the other way round to remembered ones are just those negated. They're in the order of the other
+ * comparison's 'before' items, which isn't quite the order a new comparison would give, but has the same items.
+ * <p>
+ * The list entries made for displaying some differences can be remembered with them too, so displaying them again
+ * doesn't look up every item's name, icon and prices on the client thread. Prices are updated whilst the client runs,
+ * so entries are only kept for a few minutes.
+ */
+class ItemDiffCache {
+    private static final int MAX_CACHED_DIFFS = 16;
+    private static final long ENTRIES_LIFETIME_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final ItemListDiffGenerator diffGenerator;
+    private final Ticker ticker;
+    // One segment, so the least recently used differences are the ones dropped
+    private final Cache<DiffKey, CachedDiff> cachedDiffs = CacheBuilder.newBuilder()
+            .concurrencyLevel(1)
+            .maximumSize(MAX_CACHED_DIFFS)
+            .build();
+
+    @Inject
+    ItemDiffCache(ItemListDiffGenerator diffGenerator) {
+        this(diffGenerator, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    ItemDiffCache(ItemListDiffGenerator diffGenerator, Ticker ticker) {
+        this.diffGenerator = diffGenerator;
+        this.ticker = ticker;
+    }
+
+    BankItemList findDifferencesBetween(
+            String beforeContentHash, BankItemList before, String afterContentHash, BankItemList after) {
+        DiffKey key = new DiffKey(beforeContentHash, afterContentHash);
+        CachedDiff cached = cachedDiffs.getIfPresent(key);
+        if (cached != null) {
+            return cached.differences;
+        }
+        CachedDiff reversed = cachedDiffs.getIfPresent(new DiffKey(afterContentHash, beforeContentHash));
+        BankItemList differences = reversed != null
+                ? negate(reversed.differences)
+                : diffGenerator.findDifferencesBetween(before, after);
+        cachedDiffs.put(key, new CachedDiff(differences));
+        return differences;
+    }
+
+    /**
+     * @return the list entries remembered for the differences between the item data, in the same order, or null if
+     * there aren't any or they're too old to use
+     */
+    @Nullable
+    List<ItemListEntry> getEntries(String beforeContentHash, String afterContentHash) {
+        CachedDiff cached = cachedDiffs.getIfPresent(new DiffKey(beforeContentHash, afterContentHash));
+        TimedEntries entries = cached == null ? null : cached.entries;
+        if (entries == null || ticker.read() - entries.createdNanos > ENTRIES_LIFETIME_NANOS) {
+            return null;
+        }
+        return entries.entries;
+    }
+
+    /**
+     * Remembers the list entries made for the given differences, as long as they're still the remembered differences
+     * between the item data.
+     */
+    void putEntries(
+            String beforeContentHash, String afterContentHash, BankItemList differences, List<ItemListEntry> entries) {
+        CachedDiff cached = cachedDiffs.getIfPresent(new DiffKey(beforeContentHash, afterContentHash));
+        if (cached != null && cached.differences == differences) {
+            cached.entries = new TimedEntries(ImmutableList.copyOf(entries), ticker.read());
+        }
+    }
+
+    private static BankItemList negate(BankItemList differences) {
+        BankItemList.Builder negated = BankItemList.builderWithExpectedSize(differences.size());
+        for (int i = 0; i < differences.size(); i++) {
+            negated.add(differences.getItemId(i), -differences.getQuantity(i));
+        }
+        return negated.build();
+    }
+
+    @Value
+    private static class DiffKey {
+        String beforeContentHash;
+        String afterContentHash;
+    }
+
+    private static class CachedDiff {
+        final BankItemList differences;
+        @Nullable volatile TimedEntries entries;
+
+        CachedDiff(BankItemList differences) {
+            this.differences = differences;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class TimedEntries {
+        final ImmutableList<ItemListEntry> entries;
+        final long createdNanos;
+    }
+}
@@ -0,0 +1,123 @@
+package com.bankmemory;
+
+import com.bankmemory.data.BankItem;
+import com.bankmemory.data.BankItemList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+/**
+ * Changes to the differences between two banks after the quantities of some items in the banks change, so that only the
+ * rows of those items need updating rather than all the differences being worked out and displayed again.
+ * <p>
+ * Changed rows are replaced and removed rows are taken out, where rows are indexes in the differences from before the
+ * patch. Then added items are put in at their rows, which are indexes in the patched differences. The patched
+ * differences are in the same order as {@link ItemListDiffGenerator} would give for the banks.
+ */
+@Value
+class ItemDiffPatch {
+    BankItemList patchedDifferences;
+    Map<Integer, BankItem> changedRows;
+    List<Integer> removedRows;
+    // In row order
+    Map<Integer, BankItem> addedRows;
+
+    boolean isEmpty() {
+        return changedRows.isEmpty() && removedRows.isEmpty() && addedRows.isEmpty();
+    }
+
+    /**
+     * @param quantityChanges item ID to how much more of the item there is in the 'after' bank compared with the
+     *                        'before' bank than there was when the differences were worked out
+     * @param before          the items of the 'before' bank now
+     * @param after           the items of the 'after' bank now
+     * @return the patch, or null if the differences can't be patched (i.e. an item is in them more than once, or the
+     * banks have been rearranged so the rows wouldn't be in order)
+     */
+    @Nullable
+    static ItemDiffPatch create(
+            BankItemList differences, Map<Integer, Integer> quantityChanges, BankItemList before, BankItemList after) {
+        for (int i = 0; i < differences.size(); i++) {
+            if (differences.indexOfItemId(differences.getItemId(i)) != i) {
+                return null;
+            }
+        }
+
+        Map<Integer, BankItem> changedRows = new HashMap<>();
+        List<Integer> removedRows = new ArrayList<>();
+        List<BankItem> addedItems = new ArrayList<>();
+        quantityChanges.forEach((itemId, change) -> {
+            if (change == 0) {
+                return;
+            }
+            int row = differences.indexOfItemId(itemId);
+            if (row < 0) {
+                addedItems.add(new BankItem(itemId, change));
+            } else if (differences.getQuantity(row) + change == 0) {
+                removedRows.add(row);
+            } else {
+                changedRows.put(row, new BankItem(itemId, differences.getQuantity(row) + change));
+            }
+        });
+        Collections.sort(removedRows);
+        addedItems.sort(Comparator.comparingInt(item -> rowOrder(item.getItemId(), before, after)));
+
+        // Rows that are kept and added rows are merged by where they'd be in a new diff. Only the added rows need
+        // placing, but every row is checked to be in order, as that's what makes the result the same as a new diff
+        BankItemList.Builder patched = BankItemList.builderWithExpectedSize(
+                differences.size() - removedRows.size() + addedItems.size());
+        Map<Integer, BankItem> addedRows = new LinkedHashMap<>();
+        int nextRemoved = 0;
+        int nextAdded = 0;
+        int lastOrder = -1;
+        for (int i = 0; i <= differences.size(); i++) {
+            int order = Integer.MAX_VALUE;
+            if (i < differences.size()) {
+                if (nextRemoved < removedRows.size() && removedRows.get(nextRemoved) == i) {
+                    nextRemoved++;
+                    continue;
+                }
+                order = rowOrder(differences.getItemId(i), before, after);
+                if (order == Integer.MAX_VALUE || order <= lastOrder) {
+                    return null;
+                }
+                lastOrder = order;
+            }
+            while (nextAdded < addedItems.size()
+                    && rowOrder(addedItems.get(nextAdded).getItemId(), before, after) < order) {
+                BankItem added = addedItems.get(nextAdded++);
+                addedRows.put(patched.size(), added);
+                patched.add(added.getItemId(), added.getQuantity());
+            }
+            if (i < differences.size()) {
+                BankItem changed = changedRows.get(i);
+                patched.add(differences.getItemId(i), changed == null ? differences.getQuantity(i) : changed.getQuantity());
+            }
+        }
+        if (addedRows.size() != addedItems.size()) {
+            // Added item that's in neither bank, so the changes can't be for these banks
+            return null;
+        }
+
+        return new ItemDiffPatch(patched.build(), changedRows, removedRows, addedRows);
+    }
+
+    /**
+     * @return where the item's row goes in the differences between the banks: 'before' order, then 'after' order, or
+     * {@link Integer#MAX_VALUE} if the item is in neither bank
+     */
+    private static int rowOrder(int itemId, BankItemList before, BankItemList after) {
+        int beforeIndex = before.indexOfItemId(itemId);
+        if (beforeIndex >= 0) {
+            return beforeIndex;
+        }
+        int afterIndex = after.indexOfItemId(itemId);
+        return afterIndex >= 0 ? before.size() + afterIndex : Integer.MAX_VALUE;
+    }
+}
@@ -1,33 +1,79 @@
 package com.bankmemory;
 
 import com.bankmemory.data.BankItem;
-import java.util.ArrayList;
-import java.util.HashMap;
+import com.bankmemory.data.BankItemList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 public class ItemListDiffGenerator {
     /**
      * Generates a list of differences between the two given item lists. The result list's items are in the order they
      * appear in the 'before' list, or if they don't appear in that then the order they're in in the 'after' list.
+     * <p>
+     * If an item is in the 'after' list more than once, the last of them is what the 'before' items are compared with.
      */
-    List<BankItem> findDifferencesBetween(List<BankItem> before, List<BankItem> after) {
-        Map<Integer, Integer> beforeItems = new HashMap<>();
-        Map<Integer, Integer> afterItems = new HashMap<>();
-        after.forEach(i -> afterItems.put(i.getItemId(), i.getQuantity()));
-        List<BankItem> results = new ArrayList<>();
-        for (BankItem i : before) {
-            beforeItems.put(i.getItemId(), i.getQuantity());
-            int diff = afterItems.getOrDefault(i.getItemId(), 0) - i.getQuantity();
-            if (diff != 0) {
-                results.add(new BankItem(i.getItemId(), diff));
+    public BankItemList findDifferencesBetween(List<BankItem> before, List<BankItem> after) {
+        BankItemList beforeItems = BankItemList.copyOf(before);
+        BankItemList afterItems = BankItemList.copyOf(after);
+        // Items are sorted by ID so the two lists can be merged, rather than putting every item in a map
+        long[] beforeSorted = sortByItemId(beforeItems);
+        long[] afterSorted = sortByItemId(afterItems);
+
+        int[] differences = new int[beforeItems.size()];
+        boolean[] afterItemInBefore = new boolean[afterItems.size()];
+        int a = 0;
+        int b = 0;
+        while (b < beforeSorted.length) {
+            int itemId = itemIdOf(beforeSorted[b]);
+            while (a < afterSorted.length && itemIdOf(afterSorted[a]) < itemId) {
+                a++;
+            }
+            int afterQuantity = 0;
+            while (a < afterSorted.length && itemIdOf(afterSorted[a]) == itemId) {
+                int afterIndex = indexOf(afterSorted[a]);
+                afterItemInBefore[afterIndex] = true;
+                afterQuantity = afterItems.getQuantity(afterIndex);
+                a++;
+            }
+            while (b < beforeSorted.length && itemIdOf(beforeSorted[b]) == itemId) {
+                int beforeIndex = indexOf(beforeSorted[b]);
+                differences[beforeIndex] = afterQuantity - beforeItems.getQuantity(beforeIndex);
+                b++;
+            }
+        }
+
+        BankItemList.Builder results = BankItemList.builderWithExpectedSize(0);
+        for (int i = 0; i < differences.length; i++) {
+            if (differences[i] != 0) {
+                results.add(beforeItems.getItemId(i), differences[i]);
             }
         }
-        for (BankItem i : after) {
-            if (!beforeItems.containsKey(i.getItemId())) {
-                results.add(i);
+        for (int i = 0; i < afterItemInBefore.length; i++) {
+            if (!afterItemInBefore[i]) {
+                results.add(afterItems.getItemId(i), afterItems.getQuantity(i));
             }
         }
-        return results;
+        return results.build();
+    }
+
+    /**
+     * @return the items as their ID in the high half and their index in the low half, sorted, so items with the same
+     * ID are in the order they're in in the list
+     */
+    private static long[] sortByItemId(BankItemList items) {
+        long[] sorted = new long[items.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = ((long) items.getItemId(i) << 32) | i;
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int itemIdOf(long sortedItem) {
+        return (int) (sortedItem >> 32);
+    }
+
+    private static int indexOf(long sortedItem) {
+        return (int) sortedItem;
     }
 }
@@ -0,0 +1,41 @@
+package com.bankmemory;
+
+import java.util.Objects;
+
+/**
+ * Quantities of items across a series of banks, like a pivot table with a row for each item and a column for each
+ * bank. Rows are in item ID order. An item's quantity is 0 in the banks it isn't in.
+ */
+public final class ItemTimeline {
+    static final ItemTimeline EMPTY = new ItemTimeline(0, new int[0], new int[0]);
+
+    private final int bankCount;
+    private final int[] itemIds;
+    // Row after row, i.e. the quantity of item r in bank b is at r * bankCount + b
+    private final int[] quantities;
+
+    ItemTimeline(int bankCount, int[] itemIds, int[] quantities) {
+        this.bankCount = bankCount;
+        this.itemIds = itemIds;
+        this.quantities = quantities;
+    }
+
+    public int getBankCount() {
+        return bankCount;
+    }
+
+    public int getItemCount() {
+        return itemIds.length;
+    }
+
+    public int getItemId(int row) {
+        Objects.checkIndex(row, itemIds.length);
+        return itemIds[row];
+    }
+
+    public int getQuantity(int row, int bank) {
+        Objects.checkIndex(row, itemIds.length);
+        Objects.checkIndex(bank, bankCount);
+        return quantities[row * bankCount + bank];
+    }
+}
@@ -0,0 +1,114 @@
+package com.bankmemory;
+
+import com.bankmemory.data.BankItem;
+import com.bankmemory.data.BankItemList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ItemTimelineGenerator {
+    private static final int RADIX_SORT_MIN_ITEMS = 64;
+
+    /**
+     * Works out the quantity of every item in each of the given banks (e.g. an account's snapshots, oldest first, then
+     * its current bank). If an item is in a bank more than once, its quantities there are added together.
+     * <p>
+     * Each bank's items are sorted by ID and then all of the banks are merged in a single pass, rather than diffing
+     * each bank with the next. The banks of an account have mostly the same items, so the merge goes an item ID at a
+     * time: one look at every bank takes that item from the banks that have it and finds the next lowest ID. That's
+     * a look at each bank per distinct item, which is much less work than a heap operation per item in every bank.
+     */
+    public ItemTimeline createTimeline(List<? extends List<BankItem>> banks) {
+        int bankCount = banks.size();
+        long[][] sortedBanks = new long[bankCount][];
+        int[] positions = new int[bankCount];
+        int largestBank = 0;
+        boolean hasItems = false;
+        int nextItemId = Integer.MAX_VALUE;
+        for (int b = 0; b < bankCount; b++) {
+            long[] sorted = sortByItemId(BankItemList.copyOf(banks.get(b)));
+            sortedBanks[b] = sorted;
+            largestBank = Math.max(largestBank, sorted.length);
+            if (sorted.length > 0) {
+                hasItems = true;
+                nextItemId = Math.min(nextItemId, itemIdOf(sorted[0]));
+            }
+        }
+
+        int[] itemIds = new int[largestBank];
+        int[] quantities = new int[largestBank * bankCount];
+        int rows = 0;
+        while (hasItems) {
+            int itemId = nextItemId;
+            if (rows == itemIds.length) {
+                itemIds = Arrays.copyOf(itemIds, Math.max(8, rows * 2));
+                quantities = Arrays.copyOf(quantities, itemIds.length * bankCount);
+            }
+            itemIds[rows] = itemId;
+            int rowStart = rows * bankCount;
+            rows++;
+
+            hasItems = false;
+            nextItemId = Integer.MAX_VALUE;
+            for (int b = 0; b < bankCount; b++) {
+                long[] sorted = sortedBanks[b];
+                int position = positions[b];
+                while (position < sorted.length && itemIdOf(sorted[position]) == itemId) {
+                    quantities[rowStart + b] += quantityOf(sorted[position]);
+                    position++;
+                }
+                positions[b] = position;
+                if (position < sorted.length) {
+                    hasItems = true;
+                    nextItemId = Math.min(nextItemId, itemIdOf(sorted[position]));
+                }
+            }
+        }
+        return new ItemTimeline(bankCount, Arrays.copyOf(itemIds, rows), Arrays.copyOf(quantities, rows * bankCount));
+    }
+
+    /**
+     * @return the items as their ID in the high half and their quantity in the low half, sorted by ID
+     */
+    private static long[] sortByItemId(BankItemList items) {
+        long[] sorted = new long[items.size()];
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        for (int i = 0; i < sorted.length; i++) {
+            int itemId = items.getItemId(i);
+            sorted[i] = ((long) itemId << 32) | (items.getQuantity(i) & 0xFFFFFFFFL);
+            minId = Math.min(minId, itemId);
+            maxId = Math.max(maxId, itemId);
+        }
+        if (sorted.length < RADIX_SORT_MIN_ITEMS || (long) maxId - minId > 0xFFFF) {
+            Arrays.sort(sorted);
+            return sorted;
+        }
+        // Item IDs of a bank are all within 16 bits of each other, so two passes of a radix sort do it, which is a few
+        // times quicker than a comparison sort. Sorting the banks is most of the work of making a timeline
+        long[] buffer = new long[sorted.length];
+        radixSortPass(sorted, buffer, minId, 0);
+        radixSortPass(buffer, sorted, minId, 8);
+        return sorted;
+    }
+
+    private static void radixSortPass(long[] from, long[] to, int minId, int shift) {
+        int[] offsets = new int[257];
+        for (long item : from) {
+            offsets[((itemIdOf(item) - minId) >>> shift & 0xFF) + 1]++;
+        }
+        for (int i = 0; i < 256; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        for (long item : from) {
+            to[offsets[(itemIdOf(item) - minId) >>> shift & 0xFF]++] = item;
+        }
+    }
+
+    private static int itemIdOf(long sortedItem) {
+        return (int) (sortedItem >> 32);
+    }
+
+    private static int quantityOf(long sortedItem) {
+        return (int) sortedItem;
+    }
+}
@@ -161,6 +161,11 @@ public class SavedBanksPanelController {
         public void openBanksDiffPanel() {
             topPanel.showBankDiffPanel();
         }
+
+        @Override
+        public void openBankTimelinePanel() {
+            topPanel.showBankTimelinePanel();
+        }
     }
 
     private class DataStoreListener implements DataStoreUpdateListener {
@@ -5,6 +5,7 @@ import com.bankmemory.util.OnAnyChangeDocumentListener;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.Point;
+import java.util.Arrays;
 import java.util.List;
 import javax.swing.Action;
 import javax.swing.BorderFactory;
@@ -22,7 +23,6 @@ import net.runelite.client.ui.FontManager;
 import net.runelite.client.ui.PluginPanel;
 import net.runelite.client.ui.components.IconTextField;
 import net.runelite.client.ui.components.PluginErrorPanel;
-import net.runelite.client.util.AsyncBufferedImage;
 
 
 import static com.bankmemory.util.Constants.PAD;
@@ -45,6 +45,8 @@ public class BankViewPanel extends JPanel {
     private final ItemList itemsList;
     private final JScrollPane itemsScrollPane;
     private final PluginErrorPanel errorPanel;
+    private long totalGeValue;
+    private long totalHaValue;
 
     public BankViewPanel() {
         super(false);
@@ -119,16 +121,14 @@ public class BankViewPanel extends JPanel {
         ensureDisplayIsInItemListState();
         Point scrollPosition = itemsScrollPane.getViewport().getViewPosition();
 
-        long geValue = 0;
-        long haValue = 0;
+        totalGeValue = 0;
+        totalHaValue = 0;
         for (int i = 0; i < items.size(); i++) {
-            AsyncBufferedImage img = items.get(i).getImage();
-            int unfilteredRow = i;
-            img.onLoaded(() -> repaintItemEntryIfRowVisible(unfilteredRow));
-            geValue += items.get(i).getGeValue();
-            haValue += items.get(i).getHaValue();
+            repaintWhenImageLoaded(items.get(i), i);
+            totalGeValue += items.get(i).getGeValue();
+            totalHaValue += items.get(i).getHaValue();
         }
-        valueDisplay.setValues(geValue, haValue);
+        valueDisplay.setValues(totalGeValue, totalHaValue);
         FilterableItemListModel listModel = itemsList.getModel();
         listModel.setListContents(items);
 
@@ -141,6 +141,56 @@ public class BankViewPanel extends JPanel {
         repaint();
     }
 
+    /**
+     * Updates just the listed items that have changed, keeping the filter and scroll position.
+     */
+    public void updateItemListings(ItemListChanges changes) {
+        checkState(SwingUtilities.isEventDispatchThread());
+        if (state != DisplayState.SHOWING_ITEM_LIST) {
+            // List has been reset since the changes were made, so there's nothing for them to change
+            return;
+        }
+
+        FilterableItemListModel listModel = itemsList.getModel();
+        changes.getChangedEntries().forEach((row, entry) -> {
+            addToTotalValues(listModel.getRawElementAt(row), -1);
+            addToTotalValues(entry, 1);
+        });
+        changes.getRemovedRows().forEach(row -> addToTotalValues(listModel.getRawElementAt(row), -1));
+        changes.getAddedEntries().values().forEach(entry -> addToTotalValues(entry, 1));
+        valueDisplay.setValues(totalGeValue, totalHaValue);
+        listModel.applyChanges(changes);
+
+        // Rows after a removed row have moved up. A changed row is never a removed row, so the binary search gives
+        // -(number of removed rows before it) - 1. Then rows at or after an added row have moved down
+        int[] removedRows = changes.getRemovedRows().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] addedRows = changes.getAddedEntries().keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        changes.getChangedEntries().forEach((row, entry) -> {
+            int rowAfterRemovals = row + Arrays.binarySearch(removedRows, row) + 1;
+            repaintWhenImageLoaded(entry, rowAfterAdditions(rowAfterRemovals, addedRows));
+        });
+        changes.getAddedEntries().forEach((row, entry) -> repaintWhenImageLoaded(entry, row));
+    }
+
+    private static int rowAfterAdditions(int row, int[] addedRows) {
+        for (int addedRow : addedRows) {
+            if (addedRow > row) {
+                break;
+            }
+            row++;
+        }
+        return row;
+    }
+
+    private void addToTotalValues(ItemListEntry entry, int sign) {
+        totalGeValue += sign * (long) entry.getGeValue();
+        totalHaValue += sign * (long) entry.getHaValue();
+    }
+
+    private void repaintWhenImageLoaded(ItemListEntry entry, int unfilteredRow) {
+        entry.getImage().onLoaded(() -> repaintItemEntryIfRowVisible(unfilteredRow));
+    }
+
     private void ensureDisplayIsInItemListState() {
         if (state == DisplayState.SHOWING_ITEM_LIST) {
             return;
@@ -153,6 +203,10 @@ public class BankViewPanel extends JPanel {
     }
 
     private void repaintItemEntryIfRowVisible(int unfilteredIndex) {
+        if (unfilteredIndex >= itemsList.getModel().getRawSize()) {
+            // Row has been removed since
+            return;
+        }
         int adjustedIndex = itemsList.getModel().getAdjustedIndex(unfilteredIndex);
         if (adjustedIndex < 0) {
             // Filtered out!
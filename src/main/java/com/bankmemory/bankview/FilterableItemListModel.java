@@ -1,39 +1,145 @@
 package com.bankmemory.bankview;
 
-import com.google.common.collect.ImmutableList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
 import javax.swing.ListModel;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
+import lombok.Value;
 
 
 import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkPositionIndex;
 
 class FilterableItemListModel implements ListModel<ItemListEntry> {
+    private static final int[] NO_INDEXES = new int[0];
+    // Enough for backspacing all of any item name that's been typed in
+    private static final int MAX_PREVIOUS_FILTERS = 32;
 
     private List<ItemListEntry> rawListContents = new ArrayList<>();
+    // Lower-cased once when the contents are set, rather than every time the filter changes
+    private List<String> lcItemNames = new ArrayList<>();
     private String lcFilterString = "";
-    private List<Integer> postFilterIndexes = new ArrayList<>();
+    // Raw indexes of the items that pass the filter, in order
+    private int[] postFilterIndexes = NO_INDEXES;
+    // Results of the shorter filters that the current one was typed out from, longest on top, so backspacing back to
+    // one of them doesn't need to filter the list again
+    private final Deque<FilterResult> previousFilters = new ArrayDeque<>();
     private final List<ListDataListener> listeners = new ArrayList<>();
 
     public void setListContents(List<ItemListEntry> contents) {
-        rawListContents = ImmutableList.copyOf(contents);
-        applyFilterSilently(lcFilterString);
-        fireListeners();
+        rawListContents = new ArrayList<>(contents);
+        lcItemNames = new ArrayList<>(contents.size());
+        for (ItemListEntry entry : contents) {
+            lcItemNames.add(entry.getItemName().toLowerCase());
+        }
+        previousFilters.clear();
+        postFilterIndexes = filterIndexes(null, lcFilterString);
+        fireListeners(ListDataEvent.CONTENTS_CHANGED, 0, getSize() - 1);
+    }
+
+    /**
+     * Makes the given changes to the list contents, only telling listeners about the rows that changed.
+     */
+    public void applyChanges(ItemListChanges changes) {
+        // Results of previous filters are of the contents as they were
+        previousFilters.clear();
+        changes.getChangedEntries().forEach(this::replaceEntry);
+        List<Integer> removedRows = new ArrayList<>(changes.getRemovedRows());
+        // Last first, so removing a row doesn't move the rows still to be removed
+        removedRows.sort(Collections.reverseOrder());
+        removedRows.forEach(this::removeEntry);
+        // First first, so each is put in where it is in the list after all of them are
+        new TreeMap<>(changes.getAddedEntries()).forEach(this::insertEntry);
     }
 
-    private static List<Integer> unfilteredIndexList(int numElements) {
-        List<Integer> indexes = new ArrayList<>();
-        for (int i = 0; i < numElements; i++) {
-            indexes.add(i);
+    private void replaceEntry(int rawIndex, ItemListEntry entry) {
+        checkElementIndex(rawIndex, rawListContents.size());
+        rawListContents.set(rawIndex, entry);
+        lcItemNames.set(rawIndex, entry.getItemName().toLowerCase());
+        int position = Arrays.binarySearch(postFilterIndexes, rawIndex);
+        boolean shown = lcItemNames.get(rawIndex).contains(lcFilterString);
+        if (position >= 0 && shown) {
+            fireListeners(ListDataEvent.CONTENTS_CHANGED, position, position);
+        } else if (position >= 0) {
+            postFilterIndexes = removeIndexAt(postFilterIndexes, position);
+            fireListeners(ListDataEvent.INTERVAL_REMOVED, position, position);
+        } else if (shown) {
+            int insertPosition = -position - 1;
+            postFilterIndexes = insertIndexAt(postFilterIndexes, insertPosition, rawIndex);
+            fireListeners(ListDataEvent.INTERVAL_ADDED, insertPosition, insertPosition);
         }
-        return indexes;
     }
 
-    private void fireListeners() {
-        ListDataEvent evt = new ListDataEvent(this, ListDataEvent.CONTENTS_CHANGED, 0, getSize() - 1);
-        listeners.forEach(l -> l.contentsChanged(evt));
+    private void removeEntry(int rawIndex) {
+        checkElementIndex(rawIndex, rawListContents.size());
+        rawListContents.remove(rawIndex);
+        lcItemNames.remove(rawIndex);
+        int position = Arrays.binarySearch(postFilterIndexes, rawIndex);
+        if (position >= 0) {
+            postFilterIndexes = removeIndexAt(postFilterIndexes, position);
+        }
+        for (int i = position >= 0 ? position : -position - 1; i < postFilterIndexes.length; i++) {
+            postFilterIndexes[i]--;
+        }
+        if (position >= 0) {
+            fireListeners(ListDataEvent.INTERVAL_REMOVED, position, position);
+        }
+    }
+
+    private void insertEntry(int rawIndex, ItemListEntry entry) {
+        checkPositionIndex(rawIndex, rawListContents.size());
+        rawListContents.add(rawIndex, entry);
+        lcItemNames.add(rawIndex, entry.getItemName().toLowerCase());
+        int position = Arrays.binarySearch(postFilterIndexes, rawIndex);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        // Rows from the new one on have moved down
+        for (int i = position; i < postFilterIndexes.length; i++) {
+            postFilterIndexes[i]++;
+        }
+        if (lcItemNames.get(rawIndex).contains(lcFilterString)) {
+            postFilterIndexes = insertIndexAt(postFilterIndexes, position, rawIndex);
+            fireListeners(ListDataEvent.INTERVAL_ADDED, position, position);
+        }
+    }
+
+    private static int[] insertIndexAt(int[] indexes, int position, int index) {
+        int[] result = new int[indexes.length + 1];
+        System.arraycopy(indexes, 0, result, 0, position);
+        result[position] = index;
+        System.arraycopy(indexes, position, result, position + 1, indexes.length - position);
+        return result;
+    }
+
+    private static int[] removeIndexAt(int[] indexes, int position) {
+        int[] result = new int[indexes.length - 1];
+        System.arraycopy(indexes, 0, result, 0, position);
+        System.arraycopy(indexes, position + 1, result, position, result.length - position);
+        return result;
+    }
+
+    private void fireListeners(int type, int index0, int index1) {
+        ListDataEvent evt = new ListDataEvent(this, type, index0, index1);
+        for (ListDataListener l : listeners) {
+            switch (type) {
+                case ListDataEvent.INTERVAL_ADDED:
+                    l.intervalAdded(evt);
+                    break;
+                case ListDataEvent.INTERVAL_REMOVED:
+                    l.intervalRemoved(evt);
+                    break;
+                default:
+                    l.contentsChanged(evt);
+            }
+        }
     }
 
     public void clearList() {
@@ -42,12 +148,20 @@ class FilterableItemListModel implements ListModel<ItemListEntry> {
 
     @Override
     public int getSize() {
-        return postFilterIndexes.size();
+        return postFilterIndexes.length;
     }
 
     @Override
     public ItemListEntry getElementAt(int index) {
-        return rawListContents.get(postFilterIndexes.get(index));
+        return rawListContents.get(postFilterIndexes[index]);
+    }
+
+    public int getRawSize() {
+        return rawListContents.size();
+    }
+
+    public ItemListEntry getRawElementAt(int rawIndex) {
+        return rawListContents.get(rawIndex);
     }
 
     @Override
@@ -61,26 +175,66 @@ class FilterableItemListModel implements ListModel<ItemListEntry> {
     }
 
     public void applyFilter(String filterString) {
-        List<Integer> oldIndexes = postFilterIndexes;
+        int[] oldIndexes = postFilterIndexes;
         applyFilterSilently(filterString);
-        if (!oldIndexes.equals(postFilterIndexes)) {
-            fireListeners();
+        if (!Arrays.equals(oldIndexes, postFilterIndexes)) {
+            fireListeners(ListDataEvent.CONTENTS_CHANGED, 0, getSize() - 1);
         }
     }
 
+    /**
+     * Filters the list, only looking through the items that passed a shorter filter if the new one was typed out from
+     * it. So each extra character only looks at what's left after the last one, and backspacing goes back to what
+     * was there before.
+     */
     private void applyFilterSilently(String filterString) {
-        lcFilterString = filterString.toLowerCase();
-        if (filterString.isEmpty()) {
-            postFilterIndexes = unfilteredIndexList(rawListContents.size());
+        String newLcFilterString = filterString.toLowerCase();
+        if (newLcFilterString.equals(lcFilterString)) {
             return;
         }
-        List<Integer> indexes = new ArrayList<>();
-        for (int i = 0; i < rawListContents.size(); i++) {
-            if (rawListContents.get(i).getItemName().toLowerCase().contains(lcFilterString)) {
-                indexes.add(i);
+        if (newLcFilterString.startsWith(lcFilterString)) {
+            previousFilters.push(new FilterResult(lcFilterString, postFilterIndexes));
+            if (previousFilters.size() > MAX_PREVIOUS_FILTERS) {
+                previousFilters.removeLast();
+            }
+            postFilterIndexes = filterIndexes(postFilterIndexes, newLcFilterString);
+        } else {
+            // Backspaced (or changed) past some of the filters it was typed out from
+            while (!previousFilters.isEmpty()
+                    && !newLcFilterString.startsWith(previousFilters.peek().getLcFilterString())) {
+                previousFilters.pop();
+            }
+            FilterResult base = previousFilters.peek();
+            if (base != null && base.getLcFilterString().equals(newLcFilterString)) {
+                postFilterIndexes = previousFilters.pop().getIndexes();
+            } else {
+                postFilterIndexes = filterIndexes(base == null ? null : base.getIndexes(), newLcFilterString);
+            }
+        }
+        lcFilterString = newLcFilterString;
+    }
+
+    /**
+     * @param candidates raw indexes of the items that could pass the filter, or null for all of them
+     */
+    private int[] filterIndexes(@Nullable int[] candidates, String lcFilter) {
+        int candidateCount = candidates == null ? lcItemNames.size() : candidates.length;
+        if (lcFilter.isEmpty()) {
+            int[] all = new int[candidateCount];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = candidates == null ? i : candidates[i];
+            }
+            return all;
+        }
+        int[] indexes = new int[candidateCount];
+        int count = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int rawIndex = candidates == null ? i : candidates[i];
+            if (lcItemNames.get(rawIndex).contains(lcFilter)) {
+                indexes[count++] = rawIndex;
             }
         }
-        postFilterIndexes = indexes;
+        return count == indexes.length ? indexes : Arrays.copyOf(indexes, count);
     }
 
     public void clearFilter() {
@@ -92,6 +246,13 @@ class FilterableItemListModel implements ListModel<ItemListEntry> {
      */
     public int getAdjustedIndex(int rawIndex) {
         checkElementIndex(rawIndex, rawListContents.size());
-        return postFilterIndexes.indexOf(rawIndex);
+        int position = Arrays.binarySearch(postFilterIndexes, rawIndex);
+        return position >= 0 ? position : -1;
+    }
+
+    @Value
+    private static class FilterResult {
+        String lcFilterString;
+        int[] indexes;
     }
 }
@@ -0,0 +1,18 @@
+package com.bankmemory.bankview;
+
+import java.util.List;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * Changes to the items listed in a {@link BankViewPanel}, for updating just the rows that changed rather than replacing
+ * the whole list. Changed rows are replaced and removed rows are taken out, where rows are indexes in the unfiltered
+ * list from before the changes. Then added entries are put in at their rows, which are indexes in the unfiltered list
+ * after all of the changes.
+ */
+@Value
+public class ItemListChanges {
+    Map<Integer, ItemListEntry> changedEntries;
+    List<Integer> removedRows;
+    Map<Integer, ItemListEntry> addedEntries;
+}
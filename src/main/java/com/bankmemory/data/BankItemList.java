@@ -0,0 +1,179 @@
+package com.bankmemory.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable list of bank items, stored as an array of item IDs and an array of quantities rather than an object per
+ * item. That's about a third of the memory of a list of {@link BankItem}s, and going through the items doesn't chase a
+ * pointer for each one.
+ * <p>
+ * Works as a {@code List<BankItem>}, but {@link #get} creates a new {@link BankItem} each time, so code going through
+ * lots of items should use {@link #getItemId} and {@link #getQuantity} instead.
+ */
+public final class BankItemList extends AbstractList<BankItem> implements RandomAccess {
+    private static final BankItemList EMPTY = new BankItemList(new int[0], new int[0]);
+
+    private final int[] itemIds;
+    private final int[] quantities;
+    private int hash;
+    // Open addressing hash table of (index + 1) of the items, 0 being an empty slot. Only built once an item is looked
+    // up, which is just done for a few lists (e.g. the current bank, for tooltips)
+    @Nullable private volatile int[] indexTable;
+
+    private BankItemList(int[] itemIds, int[] quantities) {
+        this.itemIds = itemIds;
+        this.quantities = quantities;
+    }
+
+    public static BankItemList of() {
+        return EMPTY;
+    }
+
+    public static BankItemList copyOf(List<BankItem> items) {
+        if (items instanceof BankItemList) {
+            return (BankItemList) items;
+        }
+        Builder builder = builderWithExpectedSize(items.size());
+        for (BankItem item : items) {
+            builder.add(item.getItemId(), item.getQuantity());
+        }
+        return builder.build();
+    }
+
+    public static Builder builderWithExpectedSize(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int getItemId(int index) {
+        Objects.checkIndex(index, itemIds.length);
+        return itemIds[index];
+    }
+
+    public int getQuantity(int index) {
+        Objects.checkIndex(index, quantities.length);
+        return quantities[index];
+    }
+
+    /**
+     * Finds an item in constant time, no matter how many items there are.
+     *
+     * @return the index of the first item with the given ID, or -1 if there isn't one
+     */
+    public int indexOfItemId(int itemId) {
+        int[] table = indexTable;
+        if (table == null) {
+            table = buildIndexTable();
+            indexTable = table;
+        }
+        int mask = table.length - 1;
+        for (int slot = slotFor(itemId, mask); ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (itemIds[entry - 1] == itemId) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int[] buildIndexTable() {
+        // At most half full, so there's always an empty slot to end a search and clusters stay short
+        int[] table = new int[Integer.highestOneBit(Math.max(1, itemIds.length) * 2 - 1) << 1];
+        int mask = table.length - 1;
+        for (int i = 0; i < itemIds.length; i++) {
+            int slot = slotFor(itemIds[i], mask);
+            while (table[slot] != 0 && itemIds[table[slot] - 1] != itemIds[i]) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] == 0) {
+                table[slot] = i + 1;
+            }
+        }
+        return table;
+    }
+
+    private static int slotFor(int itemId, int mask) {
+        // Item IDs are mostly close together, so spread them out over the table
+        int h = itemId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    @Override
+    public BankItem get(int index) {
+        Objects.checkIndex(index, itemIds.length);
+        return new BankItem(itemIds[index], quantities[index]);
+    }
+
+    @Override
+    public int size() {
+        return itemIds.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof BankItemList) {
+            BankItemList other = (BankItemList) o;
+            return Arrays.equals(itemIds, other.itemIds) && Arrays.equals(quantities, other.quantities);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as the List hash code, without creating the items
+        if (hash == 0) {
+            int result = 1;
+            for (int i = 0; i < itemIds.length; i++) {
+                result = 31 * result + itemHashCode(itemIds[i], quantities[i]);
+            }
+            hash = result;
+        }
+        return hash;
+    }
+
+    private static int itemHashCode(int itemId, int quantity) {
+        // Must match BankItem's (Lombok generated) hash code
+        return (59 + itemId) * 59 + quantity;
+    }
+
+    public static final class Builder {
+        private int[] itemIds;
+        private int[] quantities;
+        private int size = 0;
+
+        private Builder(int expectedSize) {
+            itemIds = new int[expectedSize];
+            quantities = new int[expectedSize];
+        }
+
+        public Builder add(int itemId, int quantity) {
+            if (size == itemIds.length) {
+                int newCapacity = Math.max(8, size * 2);
+                itemIds = Arrays.copyOf(itemIds, newCapacity);
+                quantities = Arrays.copyOf(quantities, newCapacity);
+            }
+            itemIds[size] = itemId;
+            quantities[size] = quantity;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public BankItemList build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            // Builder can carry on being used, so the list needs arrays of its own
+            return new BankItemList(Arrays.copyOf(itemIds, size), Arrays.copyOf(quantities, size));
+        }
+    }
+}
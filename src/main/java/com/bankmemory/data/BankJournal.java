@@ -0,0 +1,276 @@
+package com.bankmemory.data;
+
+import com.bankmemory.BankMemoryConfig;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records every change to the current bank of each account, so the history of a bank is kept without the user having
+ * to take snapshots.
+ * <p>
+ * Each change is stored as a delta against the bank before it. Every so many changes the full bank is stored again as
+ * a checkpoint, starting a new segment of the journal, so rebuilding the bank at any time never has to replay more
+ * than a few dozen changes. Changes that happen in quick succession (e.g. depositing items one at a time) are merged
+ * into a single change, but only for up to a minute from the first of them, so a long banking session still keeps
+ * its intermediate states. All of this happens on a background thread.
+ * <p>
+ * Only the most recent segments of each account are kept, so the journal doesn't keep growing forever, and recording
+ * can be turned off altogether.
+ */
+@Slf4j
+@Singleton
+class BankJournal {
+    @VisibleForTesting
+    static final int MAX_CHANGES_PER_CHECKPOINT = 50;
+    @VisibleForTesting
+    static final long MERGE_WINDOW_MILLIS = 60_000;
+    @VisibleForTesting
+    static final int MAX_SEGMENTS_PER_ACCOUNT = 10;
+    // Longest a lookup waits for the journal thread, so a slow or stuck write can't hold up whoever is asking forever
+    private static final long FIND_TIMEOUT_MILLIS = 1000;
+    private static final ItemDataParser PARSER = new ItemDataParser();
+
+    private final ConfigReaderWriter configReaderWriter;
+    private final BooleanSupplier enabled;
+    private final ExecutorService executor;
+    private final LongSupplier clock;
+    // Only used on the executor thread
+    private final Map<String, AccountJournal> accountJournals = new HashMap<>();
+
+    @Inject
+    BankJournal(ConfigReaderWriter configReaderWriter, BankMemoryConfig config) {
+        this(configReaderWriter, config::keepBankHistory, Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Bank Memory journal");
+            thread.setDaemon(true);
+            return thread;
+        }), System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    BankJournal(
+            ConfigReaderWriter configReaderWriter, BooleanSupplier enabled, ExecutorService executor, LongSupplier clock) {
+        this.configReaderWriter = configReaderWriter;
+        this.enabled = enabled;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    static String journalAccountKey(BankWorldType worldType, String accountIdentifier) {
+        return worldType.name() + "_" + accountIdentifier.toLowerCase(Locale.ROOT);
+    }
+
+    void recordCurrentBank(BankSave save) {
+        if (!enabled.getAsBoolean()) {
+            return;
+        }
+        String account = journalAccountKey(save.getWorldType(), save.getAccountIdentifier());
+        long time = clock.getAsLong();
+        executor.execute(() -> {
+            try {
+                record(account, time, save.getItemData());
+            } catch (RuntimeException ex) {
+                log.error("Failed to record bank change in journal", ex);
+            }
+        });
+    }
+
+    /**
+     * Waits for changes that have been passed to the journal to be recorded, blocking for at most the given timeout.
+     */
+    boolean awaitRecorded(long timeoutMillis) {
+        try {
+            executor.submit(() -> {}).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException ex) {
+            log.warn("Bank journal changes not all recorded", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Finds what was in an account's bank at a given time. This waits for changes already passed to the journal to be
+     * recorded, and only needs to read and replay a single segment of the journal. If that takes too long, nothing is
+     * found.
+     */
+    Optional<BankSave> findBankAt(BankWorldType worldType, String accountIdentifier, long time) {
+        String account = journalAccountKey(worldType, accountIdentifier);
+        try {
+            return executor.submit(() -> findBankAt(account, time)).get(FIND_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .map(state -> BankSave.fromHistory(worldType, accountIdentifier, state.time, state.items));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException ex) {
+            log.error("Failed to find bank at {} in journal", time, ex);
+            return Optional.empty();
+        } catch (TimeoutException ex) {
+            log.warn("Timed out finding bank at {} in journal", time);
+            return Optional.empty();
+        }
+    }
+
+    private Optional<BankState> findBankAt(String account, long time) {
+        AccountJournal journal = accountJournals.computeIfAbsent(account, this::loadAccountJournal);
+        int index = Collections.binarySearch(journal.segmentStarts, time);
+        // Start of the segment that the time is in, i.e. the last one starting at or before it
+        int segmentIndex = index >= 0 ? index : -index - 2;
+        if (segmentIndex < 0) {
+            return Optional.empty();
+        }
+        BankJournalSegment segment = journal.getSegment(journal.segmentStarts.get(segmentIndex));
+        if (segment == null) {
+            return Optional.empty();
+        }
+        List<BankJournalSegment.Change> changes = segment.getChanges();
+        int changeCount = 0;
+        while (changeCount < changes.size() && changes.get(changeCount).getTime() <= time) {
+            changeCount++;
+        }
+        long stateTime = changeCount == 0 ? segment.getCheckpointTime() : changes.get(changeCount - 1).getTime();
+        return Optional.of(new BankState(stateTime, replay(segment, changeCount)));
+    }
+
+    private void record(String account, long time, BankItemList items) {
+        AccountJournal journal = accountJournals.computeIfAbsent(account, this::loadAccountJournal);
+        if (items.equals(journal.latestItems)) {
+            return;
+        }
+        BankJournalSegment segment = journal.currentSegment;
+        if (segment == null || segment.getChanges().size() >= MAX_CHANGES_PER_CHECKPOINT) {
+            startSegment(journal, time, items);
+            return;
+        }
+
+        List<BankJournalSegment.Change> changes = new ArrayList<>(segment.getChanges());
+        BankItemList base = journal.latestItems;
+        if (!changes.isEmpty() && journal.latestChangeStartTime != 0
+                && time - journal.latestChangeStartTime < MERGE_WINDOW_MILLIS) {
+            // Replace the last change, so it's like the bank went straight from before that change to now
+            changes.remove(changes.size() - 1);
+            base = journal.itemsBeforeLatestChange;
+        } else {
+            journal.itemsBeforeLatestChange = journal.latestItems;
+            journal.latestChangeStartTime = time;
+        }
+        journal.currentSegment = new BankJournalSegment(
+                segment.getCheckpointTime(), segment.getCheckpointItemData(), changes);
+        if (items.equals(base)) {
+            // Last change was undone, so it's gone altogether
+            journal.itemsBeforeLatestChange = replay(journal.currentSegment, Math.max(0, changes.size() - 1));
+            journal.latestChangeStartTime = 0;
+        } else {
+            changes.add(new BankJournalSegment.Change(time, encodeChange(base, items)));
+        }
+        journal.latestItems = items;
+        configReaderWriter.writeJournalSegment(account, journal.currentSegment);
+    }
+
+    private void startSegment(AccountJournal journal, long time, BankItemList items) {
+        List<Long> segmentStarts = journal.segmentStarts;
+        if (!segmentStarts.isEmpty()) {
+            // Segments are stored by start time, so they need to be different
+            time = Math.max(time, segmentStarts.get(segmentStarts.size() - 1) + 1);
+        }
+        // Last write of the previous segment might not have been performed yet, so keep it at hand for reading
+        journal.previousSegment = journal.currentSegment;
+        journal.currentSegment = new BankJournalSegment(time, PARSER.toSaveString(items), new ArrayList<>());
+        journal.latestItems = items;
+        journal.itemsBeforeLatestChange = items;
+        segmentStarts.add(time);
+        configReaderWriter.writeJournalSegment(journal.account, journal.currentSegment);
+        while (segmentStarts.size() > MAX_SEGMENTS_PER_ACCOUNT) {
+            configReaderWriter.deleteJournalSegment(journal.account, segmentStarts.remove(0));
+        }
+        configReaderWriter.writeJournalIndex(journal.account, new ArrayList<>(segmentStarts));
+    }
+
+    private static String encodeChange(BankItemList before, BankItemList after) {
+        String delta = ItemDataDelta.create(before, "", after);
+        return delta == null ? PARSER.toSaveString(after) : delta;
+    }
+
+    private AccountJournal loadAccountJournal(String account) {
+        AccountJournal journal = new AccountJournal(account, configReaderWriter.readJournalIndex(account));
+        while (!journal.segmentStarts.isEmpty()) {
+            long lastStart = journal.segmentStarts.get(journal.segmentStarts.size() - 1);
+            BankJournalSegment segment = configReaderWriter.readJournalSegment(account, lastStart);
+            if (segment != null) {
+                int changeCount = segment.getChanges().size();
+                journal.currentSegment = segment;
+                journal.latestItems = replay(segment, changeCount);
+                journal.itemsBeforeLatestChange = replay(segment, Math.max(0, changeCount - 1));
+                break;
+            }
+            log.warn("Bank journal segment {} for {} missing", lastStart, account);
+            journal.segmentStarts.remove(journal.segmentStarts.size() - 1);
+        }
+        return journal;
+    }
+
+    /**
+     * @return the bank after the checkpoint and the given number of changes after it
+     */
+    static BankItemList replay(BankJournalSegment segment, int changeCount) {
+        BankItemList items = PARSER.parseSaveString(segment.getCheckpointItemData());
+        for (int i = 0; i < changeCount; i++) {
+            String change = segment.getChanges().get(i).getItemData();
+            items = ItemDataDelta.isDelta(change) ? ItemDataDelta.apply(items, change) : PARSER.parseSaveString(change);
+        }
+        return items;
+    }
+
+    @AllArgsConstructor
+    private static class BankState {
+        final long time;
+        final BankItemList items;
+    }
+
+    private class AccountJournal {
+        final String account;
+        final List<Long> segmentStarts;
+        @Nullable BankJournalSegment currentSegment;
+        @Nullable BankJournalSegment previousSegment;
+        @Nullable BankItemList latestItems;
+        @Nullable BankItemList itemsBeforeLatestChange;
+        // When the first of the changes merged into the latest change happened, or 0 if that isn't known (e.g. the
+        // latest change was recorded before the plugin started), in which case nothing more is merged into it
+        long latestChangeStartTime;
+
+        AccountJournal(String account, List<Long> segmentStarts) {
+            this.account = account;
+            this.segmentStarts = new ArrayList<>(segmentStarts);
+        }
+
+        @Nullable
+        BankJournalSegment getSegment(long segmentStart) {
+            for (BankJournalSegment segment : Arrays.asList(currentSegment, previousSegment)) {
+                if (segment != null && segment.getCheckpointTime() == segmentStart) {
+                    return segment;
+                }
+            }
+            return configReaderWriter.readJournalSegment(account, segmentStart);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.bankmemory.data;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Part of an account's bank journal: the full item data of the bank at one time (a checkpoint), followed by the
+ * changes to it after that. Rebuilding the bank at any time only ever needs one segment.
+ */
+@Value
+class BankJournalSegment {
+    long checkpointTime;
+    String checkpointItemData;
+    List<Change> changes;
+
+    @Value
+    static class Change {
+        long time;
+        // Either an item data delta against the previous bank state or, if the bank can't be rebuilt from a delta,
+        // the full item data
+        String itemData;
+    }
+}
@@ -2,19 +2,25 @@ package com.bankmemory.data;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
-import com.google.common.collect.ImmutableList;
 import com.google.gson.annotations.SerializedName;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
+import lombok.EqualsAndHashCode;
 import lombok.Value;
 import net.runelite.api.ItemContainer;
 import net.runelite.api.ItemID;
 import net.runelite.client.game.ItemManager;
 
 @Value
+@EqualsAndHashCode(doNotUseGetters = true)
 public class BankSave {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss, d MMM uuuu");
     private static final SaferUsernameFunction SAFER_USERNAME = new SaferUsernameFunction();
@@ -26,9 +32,11 @@ public class BankSave {
     long id;
     BankWorldType worldType;
     String dateTimeString;
+    // Millis since the epoch, or 0 for saves made before this was stored
+    long timestamp;
     @SerializedName(value = "accountIdentifier", alternate = {"userName"}) String accountIdentifier;
     @Nullable String saveName;
-    ImmutableList<BankItem> itemData;
+    LazyItemData itemData;
 
     @VisibleForTesting
     public BankSave(
@@ -36,18 +44,70 @@ public class BankSave {
             String accountIdentifier,
             @Nullable String saveName,
             String dateTimeString,
-            ImmutableList<BankItem> itemData) {
-        id = ID_BASE + idIncrementer.incrementAndGet();
+            List<BankItem> itemData) {
+        this(worldType, accountIdentifier, saveName, dateTimeString, 0, LazyItemData.of(itemData));
+    }
+
+    private BankSave(
+            BankWorldType worldType,
+            String accountIdentifier,
+            @Nullable String saveName,
+            String dateTimeString,
+            long timestamp,
+            LazyItemData itemData) {
+        this(ID_BASE + idIncrementer.incrementAndGet(),
+                worldType, accountIdentifier, saveName, dateTimeString, timestamp, itemData);
+    }
+
+    BankSave(
+            long id,
+            BankWorldType worldType,
+            String accountIdentifier,
+            @Nullable String saveName,
+            String dateTimeString,
+            long timestamp,
+            LazyItemData itemData) {
+        this.id = id;
         this.worldType = worldType;
         this.accountIdentifier = accountIdentifier;
         this.saveName = saveName;
         this.dateTimeString = dateTimeString;
+        this.timestamp = timestamp;
         this.itemData = itemData;
     }
 
-    // TODO: when I create a proper data upgrader/transitioner thing, remove this and put relevant logic there
-    public BankWorldType getWorldType() {
-        return worldType == null ? BankWorldType.DEFAULT : worldType;
+    /**
+     * @return when the bank was saved, in millis since the epoch, or 0 if not known
+     */
+    public long getTimestamp() {
+        if (timestamp != 0) {
+            return timestamp;
+        }
+        // Older saves only have the display string, which is in the local time zone
+        try {
+            return LocalDateTime.parse(dateTimeString, DATE_FORMATTER).atZone(ZoneId.systemDefault()).toInstant()
+                    .toEpochMilli();
+        } catch (DateTimeParseException | NullPointerException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Item data is only decoded from its saved form the first time this is called.
+     */
+    public BankItemList getItemData() {
+        return itemData.get();
+    }
+
+    /**
+     * @return a hash of the item data, which is the same for all saves with the same items in the same order
+     */
+    public String getItemDataContentHash() {
+        return itemData.getContentHash();
+    }
+
+    LazyItemData getLazyItemData() {
+        return itemData;
     }
 
     public static BankSave fromCurrentBank(
@@ -58,7 +118,7 @@ public class BankSave {
         Objects.requireNonNull(accountIdentifier);
         Objects.requireNonNull(bank);
         net.runelite.api.Item[] contents = bank.getItems();
-        ImmutableList.Builder<BankItem> itemData = ImmutableList.builder();
+        BankItemList.Builder itemData = BankItemList.builderWithExpectedSize(contents.length);
 
         for (net.runelite.api.Item item : contents) {
             int idInBank = item.getId();
@@ -70,16 +130,41 @@ public class BankSave {
                 continue;
             }
 
-            itemData.add(new BankItem(canonId, item.getQuantity()));
+            itemData.add(canonId, item.getQuantity());
         }
-        String timeString = DATE_FORMATTER.format(ZonedDateTime.now());
-        return new BankSave(worldType, accountIdentifier, null, timeString, itemData.build());
+        ZonedDateTime now = ZonedDateTime.now();
+        String timeString = DATE_FORMATTER.format(now);
+        return new BankSave(
+                worldType, accountIdentifier, null, timeString, now.toInstant().toEpochMilli(),
+                LazyItemData.of(itemData.build()));
+    }
+
+    /**
+     * Creates a save of what was in a bank at some time in the past.
+     */
+    static BankSave fromHistory(
+            BankWorldType worldType,
+            String accountIdentifier,
+            long timestamp,
+            List<BankItem> itemData) {
+        String timeString = DATE_FORMATTER.format(Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()));
+        return new BankSave(worldType, accountIdentifier, null, timeString, timestamp, LazyItemData.of(itemData));
     }
 
     private static boolean isItemToClean(int itemId) {
         return itemId == NULL_ITEM_ID || itemId == ItemID.BANK_FILLER;
     }
 
+    static BankItemList withoutItemsToClean(BankItemList items) {
+        BankItemList.Builder cleanItems = BankItemList.builderWithExpectedSize(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (!isItemToClean(items.getItemId(i))) {
+                cleanItems.add(items.getItemId(i), items.getQuantity(i));
+            }
+        }
+        return cleanItems.size() == items.size() ? items : cleanItems.build();
+    }
+
     public static BankSave snapshotFromExistingBank(String newName, BankSave existingBank) {
         Objects.requireNonNull(newName);
         return new BankSave(
@@ -87,22 +172,41 @@ public class BankSave {
                 existingBank.accountIdentifier,
                 newName,
                 existingBank.dateTimeString,
+                existingBank.timestamp,
                 existingBank.itemData);
     }
 
-    public static BankSave cleanItemData(BankSave existingBank) {
+    static BankSave cleanItemData(BankSave existingBank) {
         Objects.requireNonNull(existingBank);
+        BankItemList items = existingBank.getItemData();
+        BankItemList cleanItems = withoutItemsToClean(items);
+        if (cleanItems == items) {
+            return existingBank;
+        }
 
-        ImmutableList<BankItem> cleanItemData = existingBank.itemData.stream()
-                .filter(i -> !isItemToClean(i.getItemId()))
-                .collect(ImmutableList.toImmutableList());
-
+        // Same save, just tidied up, so keep the same ID
         return new BankSave(
+                existingBank.id,
                 existingBank.worldType,
                 existingBank.accountIdentifier,
                 existingBank.saveName,
                 existingBank.dateTimeString,
-                cleanItemData);
+                existingBank.timestamp,
+                LazyItemData.of(cleanItems));
+    }
+
+    static BankSave withDefaultWorldType(BankSave existingBank) {
+        if (existingBank.worldType != null) {
+            return existingBank;
+        }
+        return new BankSave(
+                existingBank.id,
+                BankWorldType.DEFAULT,
+                existingBank.accountIdentifier,
+                existingBank.saveName,
+                existingBank.dateTimeString,
+                existingBank.timestamp,
+                existingBank.itemData);
     }
 
     public static BankSave withNewAccountId(String newAccountId, BankSave existingBank) {
@@ -112,6 +216,7 @@ public class BankSave {
                 newAccountId,
                 existingBank.saveName,
                 existingBank.dateTimeString,
+                existingBank.timestamp,
                 existingBank.itemData);
     }
 
@@ -122,7 +227,7 @@ public class BankSave {
                 .add("accountIdentifier", SAFER_USERNAME.from(accountIdentifier))
                 .add("dateTimeString", dateTimeString)
                 .add("saveName", saveName)
-                .add("itemData", itemData)
+                .add("itemData", getItemData())
                 .toString();
     }
 }
@@ -0,0 +1,123 @@
+package com.bankmemory.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * Reads and writes bank saves straight from and to the JSON stream, rather than going through reflection and a tree of
+ * JSON elements for every save. Reads everything the reflection based format ever wrote, including the old
+ * "userName" name for the account identifier.
+ */
+class BankSaveTypeAdapter extends TypeAdapter<BankSave> {
+    private static final String ID = "id";
+    private static final String WORLD_TYPE = "worldType";
+    private static final String DATE_TIME_STRING = "dateTimeString";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String ACCOUNT_IDENTIFIER = "accountIdentifier";
+    private static final String LEGACY_ACCOUNT_IDENTIFIER = "userName";
+    private static final String SAVE_NAME = "saveName";
+    private static final String ITEM_DATA = "itemData";
+
+    private final ItemDataParser itemDataParser;
+
+    BankSaveTypeAdapter(ItemDataParser itemDataParser) {
+        this.itemDataParser = itemDataParser;
+    }
+
+    @Override
+    public void write(JsonWriter out, BankSave save) throws IOException {
+        if (save == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name(ID).value(save.getId());
+        if (save.getWorldType() != null) {
+            out.name(WORLD_TYPE).value(save.getWorldType().name());
+        }
+        writeNullableString(out, DATE_TIME_STRING, save.getDateTimeString());
+        out.name(TIMESTAMP).value(save.getTimestamp());
+        writeNullableString(out, ACCOUNT_IDENTIFIER, save.getAccountIdentifier());
+        writeNullableString(out, SAVE_NAME, save.getSaveName());
+        out.name(ITEM_DATA);
+        itemDataParser.write(out, save.getLazyItemData());
+        out.endObject();
+    }
+
+    private static void writeNullableString(JsonWriter out, String name, @Nullable String value) throws IOException {
+        // Nulls are left out, same as Gson does by default
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    @Override
+    public BankSave read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        long id = 0;
+        BankWorldType worldType = null;
+        String dateTimeString = null;
+        long timestamp = 0;
+        String accountIdentifier = null;
+        String saveName = null;
+        LazyItemData itemData = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case ID:
+                    id = in.nextLong();
+                    break;
+                case WORLD_TYPE:
+                    worldType = readWorldType(in.nextString());
+                    break;
+                case DATE_TIME_STRING:
+                    dateTimeString = in.nextString();
+                    break;
+                case TIMESTAMP:
+                    timestamp = in.nextLong();
+                    break;
+                case ACCOUNT_IDENTIFIER:
+                case LEGACY_ACCOUNT_IDENTIFIER:
+                    accountIdentifier = in.nextString();
+                    break;
+                case SAVE_NAME:
+                    saveName = in.nextString();
+                    break;
+                case ITEM_DATA:
+                    itemData = itemDataParser.read(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (itemData == null) {
+            itemData = LazyItemData.of(BankItemList.of());
+        }
+        return new BankSave(id, worldType, accountIdentifier, saveName, dateTimeString, timestamp, itemData);
+    }
+
+    @Nullable
+    private static BankWorldType readWorldType(String name) {
+        try {
+            return BankWorldType.valueOf(name);
+        } catch (IllegalArgumentException ex) {
+            // Unknown world types are read as null, same as Gson does for enums
+            return null;
+        }
+    }
+}
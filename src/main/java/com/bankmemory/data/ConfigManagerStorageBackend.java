@@ -0,0 +1,43 @@
+package com.bankmemory.data;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import net.runelite.client.config.ConfigManager;
+
+/**
+ * Stores data in the RuneLite config, under a single config group.
+ */
+class ConfigManagerStorageBackend implements StorageBackend {
+    private final ConfigManager configManager;
+    private final String configGroup;
+
+    ConfigManagerStorageBackend(ConfigManager configManager, String configGroup) {
+        this.configManager = configManager;
+        this.configGroup = configGroup;
+    }
+
+    @Nullable
+    @Override
+    public String get(String key) {
+        return configManager.getConfiguration(configGroup, key);
+    }
+
+    @Override
+    public void set(String key, String value) {
+        configManager.setConfiguration(configGroup, key, value);
+    }
+
+    @Override
+    public void unset(String key) {
+        configManager.unsetConfiguration(configGroup, key);
+    }
+
+    @Override
+    public List<String> getKeys() {
+        String prefix = configGroup + ".";
+        return configManager.getConfigurationKeys(prefix).stream()
+                .map(k -> k.substring(prefix.length()))
+                .collect(Collectors.toList());
+    }
+}
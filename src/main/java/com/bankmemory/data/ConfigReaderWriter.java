@@ -1,85 +1,444 @@
 package com.bankmemory.data;
 
+import com.bankmemory.BankMemoryConfig;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import com.google.inject.Inject;
-import lombok.AllArgsConstructor;
+import com.google.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
 import net.runelite.client.config.ConfigManager;
 
+import java.io.File;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
+/**
+ * Reads and writes all of the plugin's stored data. There must only be the one of these, shared by everything that
+ * stores data, as it keeps track of what's been stored and owns the storage backend.
+ */
 @Slf4j
+@Singleton
 class ConfigReaderWriter {
     private static final String PLUGIN_BASE_GROUP = "bankMemory";
-    private static final String CURRENT_LIST_KEY = "currentList";
-    private static final String SNAPSHOT_LIST_KEY = "snapshotList";
+    private static final String CURRENT_INDEX_KEY = "currentIndex";
+    private static final String SNAPSHOT_INDEX_KEY = "snapshotIndex";
+    private static final String SAVE_KEY_PREFIX = "save_";
+    private static final String ITEM_DATA_KEY_PREFIX = "items_";
+    // Old storage layout where every save in a list was stored under the one key
+    private static final String LEGACY_CURRENT_LIST_KEY = "currentList";
+    private static final String LEGACY_SNAPSHOT_LIST_KEY = "snapshotList";
     private static final String NAME_MAP_KEY = "nameMap";
+    private static final String ITEM_DATA_BASES_KEY = "itemDataBases";
+    private static final String JOURNAL_INDEX_KEY_PREFIX = "journalIndex_";
+    private static final String JOURNAL_SEGMENT_KEY_PREFIX = "journal_";
+    // Most deltas that are stored in a chain before the full item data is stored again, so reading a save never has to
+    // go through too many deltas
+    private static final int MAX_DELTAS_PER_KEYFRAME = 10;
+    private static final String DATA_VERSION_KEY = "dataVersion";
+    // Upgrades to stored saves, oldest first. Each is run once on every save and the upgraded saves are written back,
+    // then the data version is stored so the upgrades never run again. New upgrades must only ever be added at the end.
+    private static final List<UnaryOperator<BankSave>> SAVE_UPGRADES = ImmutableList.of(
+            // 1: Empty bank slots and bank fillers used to be saved as items
+            BankSave::cleanItemData,
+            // 2: Saves from before world types were saved
+            BankSave::withDefaultWorldType);
+    private static final int DATA_VERSION = SAVE_UPGRADES.size();
+    private static final long WRITE_DEBOUNCE_MILLIS = 500;
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MILLIS = 1000;
+    private static final File DATA_FILE = new File(new File(RuneLite.RUNELITE_DIR, "bank-memory"), "bank-memory.dat");
 
     private final Gson gson;
-    private final ConfigManager configManager;
-
-    private final BlockingQueue<ConfigWrite> configWritesQueue = new LinkedBlockingQueue<>();
+    private final StorageBackend storage;
+    private final ConfigWriteScheduler writeScheduler;
+    // Saves that have been stored under their own key, by save ID. A BankSave almost never changes once created (most
+    // changes make a new save with a new ID) so a save usually only needs writing once.
+    private final Map<Long, BankSave> storedCurrentSaves = new HashMap<>();
+    private final Map<Long, BankSave> storedSnapshotSaves = new HashMap<>();
+    // Item data is stored once per content hash, for however many stored saves have that item data
+    private final Multiset<String> storedItemDataReferences = HashMultiset.create();
+    // Content hash of the item data each stored delta is based on, by the delta's content hash. A delta holds a
+    // reference to its base item data, so the base is kept stored for as long as the delta is.
+    private final Map<String, String> itemDataBases;
+    private final ItemDataParser itemDataParser = new ItemDataParser(this::loadItemData);
+    private final int storedDataVersion;
+    private final Set<String> upgradedIndexKeys = new HashSet<>();
+    // Working out what to write for a list of saves means hashing, encoding and diffing item data, so it's done here
+    // rather than on the thread that changed the saves (usually the client thread)
+    private final ExecutorService saveWriteExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Bank Memory save writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Latest saves waiting to be written, by index key. Only the latest list matters, so lists changed in quick
+    // succession are only written once. Guarded by itself
+    private final Map<String, List<BankSave>> pendingSaveLists = new HashMap<>();
 
     @Inject
+    ConfigReaderWriter(Gson gson, ConfigManager configManager, BankMemoryConfig config) {
+        this(gson, chooseStorage(configManager, config.storeDataInFile()));
+    }
+
+    @VisibleForTesting
     ConfigReaderWriter(Gson gson, ConfigManager configManager) {
-        Type itemDataListType = new TypeToken<ImmutableList<BankItem>>() {}.getType();
-        this.gson = gson.newBuilder().registerTypeAdapter(itemDataListType, new ItemDataParser()).create();
-        this.configManager = configManager;
+        this(gson, new ConfigManagerStorageBackend(configManager, PLUGIN_BASE_GROUP));
+    }
+
+    @VisibleForTesting
+    ConfigReaderWriter(Gson gson, StorageBackend storage) {
+        this.gson = gson.newBuilder()
+                .registerTypeAdapter(BankSave.class, new BankSaveTypeAdapter(itemDataParser))
+                .registerTypeAdapter(LazyItemData.class, itemDataParser.nullSafe())
+                .create();
+        this.storage = storage;
+        this.writeScheduler = new ConfigWriteScheduler(WRITE_DEBOUNCE_MILLIS, this::performWrite);
+        Type basesType = new TypeToken<HashMap<String, String>>() {}.getType();
+        this.itemDataBases = loadData(ITEM_DATA_BASES_KEY, basesType, new HashMap<>(), "Item data bases");
+        storedItemDataReferences.addAll(itemDataBases.values());
+        this.storedDataVersion = loadData(DATA_VERSION_KEY, Integer.class, 0, "Data version");
+    }
 
-        Thread configWriter = new Thread(new ConfigWriter(), "Bank Memory config writer");
-        configWriter.setDaemon(true);
-        configWriter.start();
+    private static StorageBackend chooseStorage(ConfigManager configManager, boolean storeDataInFile) {
+        StorageBackend configStorage = new ConfigManagerStorageBackend(configManager, PLUGIN_BASE_GROUP);
+        if (!storeDataInFile && !DATA_FILE.exists()) {
+            return configStorage;
+        }
+        StorageBackend fileStorage = new RecordFileStorageBackend(DATA_FILE);
+        if (storeDataInFile) {
+            moveDataIfUnused(configStorage, fileStorage);
+            return fileStorage;
+        } else {
+            moveDataIfUnused(fileStorage, configStorage);
+            if (fileStorage.getKeys().isEmpty()) {
+                // Deletes the file, so it isn't read on every startup from now on
+                fileStorage.clear();
+            }
+            return configStorage;
+        }
+    }
+
+    /**
+     * Moves all data to a different storage backend, if that backend isn't being used already. This happens when the
+     * user changes where data is stored.
+     */
+    @VisibleForTesting
+    static void moveDataIfUnused(StorageBackend from, StorageBackend to) {
+        List<String> keys = from.getKeys();
+        if (keys.isEmpty() || !to.getKeys().isEmpty()) {
+            return;
+        }
+        log.info("Moving {} Bank Memory data entries to a different storage", keys.size());
+        for (String key : keys) {
+            String data = from.get(key);
+            if (data != null) {
+                to.set(key, data);
+            }
+        }
+        // Only removed once it's all been copied, so nothing is lost if the client is closed part way through
+        from.clear();
+    }
+
+    private void performWrite(String configGroup, String configKey, @Nullable Object data) {
+        // There's only the one group, which the storage backend takes care of
+        if (data == null) {
+            storage.unset(configKey);
+        } else {
+            storage.set(configKey, gson.toJson(data));
+        }
     }
 
     List<BankSave> readCurrentBanks() {
-        Type deserialiseType = new TypeToken<List<BankSave>>() {}.getType();
-        List<BankSave> fromDataStore = loadDataFromConfig(CURRENT_LIST_KEY, deserialiseType, new ArrayList<>(), "Current bank list");
-        return upgradeBankSaves(fromDataStore);
+        List<BankSave> fromDataStore = readSaves(
+                CURRENT_INDEX_KEY, LEGACY_CURRENT_LIST_KEY, storedCurrentSaves, "Current bank list");
+        return upgradeBankSaves(CURRENT_INDEX_KEY, fromDataStore, storedCurrentSaves);
     }
 
-    private List<BankSave> upgradeBankSaves(List<BankSave> bankSaves) {
-        return bankSaves.stream().map(BankSave::cleanItemData).collect(Collectors.toList());
+    private synchronized List<BankSave> upgradeBankSaves(
+            String indexKey, List<BankSave> bankSaves, Map<Long, BankSave> storedSaves) {
+        if (storedDataVersion >= DATA_VERSION || !upgradedIndexKeys.add(indexKey)) {
+            return bankSaves;
+        }
+        log.info("Upgrading {} saves from data version {} to {}", bankSaves.size(), storedDataVersion, DATA_VERSION);
+        List<BankSave> upgraded = bankSaves;
+        for (UnaryOperator<BankSave> upgrade : SAVE_UPGRADES.subList(storedDataVersion, DATA_VERSION)) {
+            upgraded = upgraded.stream().map(upgrade).collect(Collectors.toList());
+        }
+        // Only the saves that an upgrade changed actually get written
+        writeSaves(indexKey, upgraded, storedSaves, isSnapshotIndex(indexKey));
+        if (upgradedIndexKeys.containsAll(List.of(CURRENT_INDEX_KEY, SNAPSHOT_INDEX_KEY))) {
+            writeScheduler.schedule(PLUGIN_BASE_GROUP, DATA_VERSION_KEY, DATA_VERSION);
+        }
+        return upgraded;
     }
 
     void writeCurrentBanks(List<BankSave> banks) {
-        ConfigWrite configWrite = new ConfigWrite(PLUGIN_BASE_GROUP, CURRENT_LIST_KEY, new ArrayList<>(banks));
-        scheduleConfigWrite(configWrite);
+        scheduleSavesWrite(CURRENT_INDEX_KEY, banks, storedCurrentSaves);
     }
 
     List<BankSave> readBankSnapshots() {
-        Type deserialiseType = new TypeToken<List<BankSave>>() {}.getType();
-        List<BankSave> fromDataStore = loadDataFromConfig(SNAPSHOT_LIST_KEY, deserialiseType, new ArrayList<>(), "Snapshot bank list");
-        return upgradeBankSaves(fromDataStore);
+        List<BankSave> fromDataStore = readSaves(
+                SNAPSHOT_INDEX_KEY, LEGACY_SNAPSHOT_LIST_KEY, storedSnapshotSaves, "Snapshot bank list");
+        return upgradeBankSaves(SNAPSHOT_INDEX_KEY, fromDataStore, storedSnapshotSaves);
     }
 
     void writeBankSnapshots(List<BankSave> banks) {
-        ConfigWrite configWrite = new ConfigWrite(PLUGIN_BASE_GROUP, SNAPSHOT_LIST_KEY, new ArrayList<>(banks));
-        scheduleConfigWrite(configWrite);
+        scheduleSavesWrite(SNAPSHOT_INDEX_KEY, banks, storedSnapshotSaves);
+    }
+
+    private void scheduleSavesWrite(String indexKey, List<BankSave> saves, Map<Long, BankSave> storedSaves) {
+        boolean alreadyScheduled;
+        synchronized (pendingSaveLists) {
+            alreadyScheduled = pendingSaveLists.put(indexKey, saves) != null;
+        }
+        if (alreadyScheduled) {
+            return;
+        }
+        saveWriteExecutor.execute(() -> {
+            List<BankSave> latestSaves;
+            synchronized (pendingSaveLists) {
+                latestSaves = pendingSaveLists.remove(indexKey);
+            }
+            try {
+                writeSaves(indexKey, latestSaves, storedSaves, isSnapshotIndex(indexKey));
+            } catch (RuntimeException ex) {
+                log.error("Failed to write bank saves for {}", indexKey, ex);
+            }
+        });
+    }
+
+    private synchronized List<BankSave> readSaves(
+            String indexKey, String legacyListKey, Map<Long, BankSave> storedSaves, String dataName) {
+        Type indexType = new TypeToken<List<Long>>() {}.getType();
+        List<Long> index = loadData(indexKey, indexType, null, dataName + " index");
+        if (index == null) {
+            return migrateLegacySaveList(indexKey, legacyListKey, storedSaves, dataName);
+        }
+
+        List<BankSave> saves = new ArrayList<>();
+        boolean savesNeedRewriting = false;
+        for (long saveId : index) {
+            BankSave save = loadData(saveKey(saveId), BankSave.class, null, dataName + " save");
+            if (save == null) {
+                log.warn("{} index refers to missing save {}", dataName, saveId);
+                continue;
+            }
+            // Unknown world types (e.g. from a newer version of the plugin) are read as null, which can happen at any
+            // time, not just before the upgrade. The save is only written with the default if it's changed anyway
+            save = BankSave.withDefaultWorldType(save);
+            saves.add(save);
+            LazyItemData itemData = save.getLazyItemData();
+            if (itemData.isContentHashKnown()) {
+                storedSaves.put(saveId, save);
+                storedItemDataReferences.add(itemData.getContentHash());
+            } else {
+                // Item data is in the save itself rather than stored separately
+                savesNeedRewriting = true;
+            }
+        }
+        if (savesNeedRewriting) {
+            writeSaves(indexKey, saves, storedSaves, isSnapshotIndex(indexKey));
+        }
+        return saves;
+    }
+
+    private List<BankSave> migrateLegacySaveList(
+            String indexKey, String legacyListKey, Map<Long, BankSave> storedSaves, String dataName) {
+        Type deserialiseType = new TypeToken<List<BankSave>>() {}.getType();
+        List<BankSave> saves = loadData(legacyListKey, deserialiseType, null, dataName);
+        if (saves == null) {
+            return new ArrayList<>();
+        }
+        saves = saves.stream().map(BankSave::withDefaultWorldType).collect(Collectors.toList());
+        log.info("Moving {} saves in {} to a key per save", saves.size(), dataName);
+        writeSaves(indexKey, saves, storedSaves, isSnapshotIndex(indexKey));
+        // Scheduled after the new keys so the old data is only removed once it's been written in the new layout
+        writeScheduler.schedule(PLUGIN_BASE_GROUP, legacyListKey, null);
+        return saves;
+    }
+
+    private static boolean isSnapshotIndex(String indexKey) {
+        return indexKey.equals(SNAPSHOT_INDEX_KEY);
+    }
+
+    /**
+     * @param storeAsDeltas whether new item data may be stored as a delta against the item data of the next older save
+     *                      of the same account in the list (saves are listed newest first)
+     */
+    private synchronized void writeSaves(
+            String indexKey, List<BankSave> saves, Map<Long, BankSave> storedSaves, boolean storeAsDeltas) {
+        Long[] index = new Long[saves.size()];
+        Map<Long, BankSave> newStoredSaves = new HashMap<>();
+        List<String> replacedItemData = new ArrayList<>();
+        Map<String, LazyItemData> previousItemDataByAccount = new HashMap<>();
+        boolean itemDataBasesChanged = false;
+        // Oldest first, so item data that newer saves' deltas are based on is stored before them
+        for (int i = saves.size() - 1; i >= 0; i--) {
+            BankSave save = saves.get(i);
+            index[i] = save.getId();
+            LazyItemData itemData = save.getLazyItemData();
+            String account = save.getWorldType() + ":" + save.getAccountIdentifier().toLowerCase();
+            LazyItemData previousItemData = previousItemDataByAccount.put(account, itemData);
+            BankSave storedSave = storedSaves.get(save.getId());
+            if (storedSave != save && !save.equals(storedSave)) {
+                String contentHash = itemData.getContentHash();
+                String storedContentHash = storedSave == null ? null : storedSave.getLazyItemData().getContentHash();
+                boolean itemDataChanged = !contentHash.equals(storedContentHash);
+                if (itemDataChanged && storedItemDataReferences.add(contentHash, 1) == 0) {
+                    String baseHash = storeAsDeltas ? chooseDeltaBase(previousItemData, contentHash) : null;
+                    String delta = baseHash == null
+                            ? null : ItemDataDelta.create(previousItemData.get(), baseHash, itemData.get());
+                    if (delta == null) {
+                        writeScheduler.schedule(
+                                PLUGIN_BASE_GROUP, itemDataKey(contentHash), itemDataParser.toSaveString(itemData.get()));
+                    } else {
+                        writeScheduler.schedule(PLUGIN_BASE_GROUP, itemDataKey(contentHash), delta);
+                        itemDataBases.put(contentHash, baseHash);
+                        storedItemDataReferences.add(baseHash);
+                        itemDataBasesChanged = true;
+                    }
+                }
+                if (itemDataChanged && storedContentHash != null) {
+                    replacedItemData.add(storedContentHash);
+                }
+                writeScheduler.schedule(PLUGIN_BASE_GROUP, saveKey(save.getId()), save);
+            }
+            newStoredSaves.put(save.getId(), save);
+        }
+        for (Map.Entry<Long, BankSave> oldSave : storedSaves.entrySet()) {
+            if (!newStoredSaves.containsKey(oldSave.getKey())) {
+                writeScheduler.schedule(PLUGIN_BASE_GROUP, saveKey(oldSave.getKey()), null);
+                replacedItemData.add(oldSave.getValue().getLazyItemData().getContentHash());
+            }
+        }
+        // Released after new item data has been referenced, in case that's based on any of this
+        for (String contentHash : replacedItemData) {
+            itemDataBasesChanged |= releaseItemData(contentHash);
+        }
+        storedSaves.clear();
+        storedSaves.putAll(newStoredSaves);
+        writeScheduler.schedule(PLUGIN_BASE_GROUP, indexKey, Arrays.asList(index));
+        if (itemDataBasesChanged) {
+            writeScheduler.schedule(PLUGIN_BASE_GROUP, ITEM_DATA_BASES_KEY, new HashMap<>(itemDataBases));
+        }
+    }
+
+    @Nullable
+    private String chooseDeltaBase(@Nullable LazyItemData candidate, String contentHash) {
+        if (candidate == null || !candidate.isContentHashKnown()) {
+            return null;
+        }
+        String baseHash = candidate.getContentHash();
+        if (baseHash.equals(contentHash) || !storedItemDataReferences.contains(baseHash)) {
+            return null;
+        }
+        // Store the full item data every so often (a "keyframe") so chains of deltas don't get too long
+        int chainLength = 0;
+        for (String hash = baseHash; hash != null; hash = itemDataBases.get(hash)) {
+            if (++chainLength > MAX_DELTAS_PER_KEYFRAME) {
+                return null;
+            }
+        }
+        return baseHash;
+    }
+
+    /**
+     * @return whether any stored item data bases changed
+     */
+    private boolean releaseItemData(String contentHash) {
+        boolean basesChanged = false;
+        String hash = contentHash;
+        while (hash != null && storedItemDataReferences.remove(hash, 1) == 1) {
+            writeScheduler.schedule(PLUGIN_BASE_GROUP, itemDataKey(hash), null);
+            hash = itemDataBases.remove(hash);
+            basesChanged |= hash != null;
+        }
+        return basesChanged;
+    }
+
+    @Nullable
+    private String loadItemData(String contentHash) {
+        return loadData(itemDataKey(contentHash), String.class, null, "Item data");
+    }
+
+    private static String saveKey(long saveId) {
+        return SAVE_KEY_PREFIX + saveId;
+    }
+
+    private static String itemDataKey(String contentHash) {
+        return ITEM_DATA_KEY_PREFIX + contentHash;
+    }
+
+    List<Long> readJournalIndex(String journalAccountKey) {
+        Type indexType = new TypeToken<List<Long>>() {}.getType();
+        return loadData(JOURNAL_INDEX_KEY_PREFIX + journalAccountKey, indexType, new ArrayList<>(), "Bank journal index");
+    }
+
+    void writeJournalIndex(String journalAccountKey, List<Long> segmentStarts) {
+        writeScheduler.schedule(PLUGIN_BASE_GROUP, JOURNAL_INDEX_KEY_PREFIX + journalAccountKey, segmentStarts);
+    }
+
+    @Nullable
+    BankJournalSegment readJournalSegment(String journalAccountKey, long segmentStart) {
+        return loadData(journalSegmentKey(journalAccountKey, segmentStart), BankJournalSegment.class, null,
+                "Bank journal segment");
+    }
+
+    void writeJournalSegment(String journalAccountKey, BankJournalSegment segment) {
+        writeScheduler.schedule(
+                PLUGIN_BASE_GROUP, journalSegmentKey(journalAccountKey, segment.getCheckpointTime()), segment);
+    }
+
+    void deleteJournalSegment(String journalAccountKey, long segmentStart) {
+        writeScheduler.schedule(PLUGIN_BASE_GROUP, journalSegmentKey(journalAccountKey, segmentStart), null);
+    }
+
+    private static String journalSegmentKey(String journalAccountKey, long segmentStart) {
+        return JOURNAL_SEGMENT_KEY_PREFIX + journalAccountKey + "_" + segmentStart;
     }
 
     Map<String, String> readNameMap() {
         Type deserialiseType = new TypeToken<HashMap<String, String>>() {}.getType();
-        return loadDataFromConfig(NAME_MAP_KEY, deserialiseType, new HashMap<>(), "Display name map");
+        return loadData(NAME_MAP_KEY, deserialiseType, new HashMap<>(), "Display name map");
     }
 
     void writeNameMap(Map<String, String> map) {
-        ConfigWrite write = new ConfigWrite(PLUGIN_BASE_GROUP, NAME_MAP_KEY, new HashMap<>(map));
-        scheduleConfigWrite(write);
+        writeScheduler.schedule(PLUGIN_BASE_GROUP, NAME_MAP_KEY, new HashMap<>(map));
+    }
+
+    void flushWrites() {
+        // Saves still being worked out haven't been passed to the write scheduler yet
+        try {
+            saveWriteExecutor.submit(() -> {}).get(SHUTDOWN_FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ex) {
+            log.warn("Bank saves not all scheduled for writing", ex);
+        }
+        writeScheduler.flush(SHUTDOWN_FLUSH_TIMEOUT_MILLIS);
     }
 
-    private <T> T loadDataFromConfig(String configKey, Type deserialiseType, T defaultInstance, String dataName) {
-        String jsonString = configManager.getConfiguration(PLUGIN_BASE_GROUP, configKey);
+    private <T> T loadData(String key, Type deserialiseType, T defaultInstance, String dataName) {
+        String jsonString = storage.get(key);
         if (jsonString == null) {
             // Never set before
             return defaultInstance;
@@ -90,47 +449,8 @@ class ConfigReaderWriter {
             return loadedData == null ? defaultInstance : loadedData;
         } catch (JsonParseException ex) {
             log.error("{} json invalid. All is lost", dataName, ex);
-            configManager.unsetConfiguration(PLUGIN_BASE_GROUP, configKey);
+            storage.unset(key);
             return defaultInstance;
         }
     }
-
-    private void scheduleConfigWrite(ConfigWrite configWrite) {
-        try {
-            log.debug("Scheduling write for {}.{}", configWrite.configGroup, configWrite.configKey);
-            configWritesQueue.put(configWrite);
-        } catch (InterruptedException ex) {
-            log.error("Unexpected interrupt whilst schedule config write. Data not being written", ex);
-        }
-    }
-
-    @AllArgsConstructor
-    private static class ConfigWrite {
-        final String configGroup;
-        final String configKey;
-        final Object data;
-    }
-
-    // NB: technically there's a race condition because it's possible that the client could shut down before the call
-    // to the ConfigManager is made. However, us trying to react to a client shutdown by writing all the remaining
-    // writes won't work since the ConfigManager is the first thing to react to a client shutdown and won't perform any
-    // new writes once it has.
-    // Not very likely to happen anyway since it basically requires user to do something in game (to trigger plugin) and
-    // then super quickly (like <10ms) close the client.
-    private class ConfigWriter implements Runnable {
-        @Override
-        public void run() {
-            while (!Thread.interrupted()) {
-                ConfigWrite write;
-                try {
-                    write = configWritesQueue.take();
-                    log.debug("Got write for {}.{}", write.configGroup, write.configKey);
-                } catch (InterruptedException ex) {
-                    log.warn("ConfigWriter thread interrupted", ex);
-                    break;
-                }
-                configManager.setConfiguration(write.configGroup, write.configKey, gson.toJson(write.data));
-            }
-        }
-    }
 }
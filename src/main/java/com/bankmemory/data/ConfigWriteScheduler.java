@@ -0,0 +1,164 @@
+package com.bankmemory.data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Performs config writes on a background thread, merging writes to the same config key so only the newest data for
+ * that key is ever written. A write waits for the debounce window before it's performed so that bursts of writes
+ * (e.g. depositing lots of items one by one) only result in a single write of the latest data.
+ */
+@Slf4j
+class ConfigWriteScheduler {
+
+    interface Writer {
+        /**
+         * @param data the data to write, or null if the config key should be unset
+         */
+        void write(String configGroup, String configKey, @Nullable Object data);
+    }
+
+    private final Object lock = new Object();
+    // Keyed by group + key, guarded by lock
+    private final Map<String, PendingWrite> pendingWrites = new LinkedHashMap<>();
+    private final long debounceNanos;
+    private final Writer writer;
+    private final AtomicLong writesReceived = new AtomicLong();
+    private final AtomicLong writesPerformed = new AtomicLong();
+    private boolean writeInProgress = false;
+
+    ConfigWriteScheduler(long debounceMillis, Writer writer) {
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        this.writer = writer;
+
+        Thread configWriter = new Thread(this::runWriteLoop, "Bank Memory config writer");
+        configWriter.setDaemon(true);
+        configWriter.start();
+    }
+
+    void schedule(String configGroup, String configKey, @Nullable Object data) {
+        log.debug("Scheduling write for {}.{}", configGroup, configKey);
+        writesReceived.incrementAndGet();
+        synchronized (lock) {
+            PendingWrite existing = pendingWrites.get(pendingWriteKey(configGroup, configKey));
+            if (existing != null) {
+                // Latest data wins, but keep the original deadline so constant writes can't postpone it forever
+                existing.data = data;
+            } else {
+                PendingWrite write = new PendingWrite(configGroup, configKey, data, System.nanoTime() + debounceNanos);
+                pendingWrites.put(pendingWriteKey(configGroup, configKey), write);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Performs all pending writes immediately, waiting up to the given timeout for them to finish.
+     *
+     * @return true if all writes were performed within the timeout
+     */
+    boolean flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (lock) {
+            long now = System.nanoTime();
+            pendingWrites.values().forEach(w -> w.dueAtNanos = now);
+            lock.notifyAll();
+            try {
+                while (!pendingWrites.isEmpty() || writeInProgress) {
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        log.warn("Timed out flushing config writes, {} writes not performed", pendingWrites.size());
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+                }
+            } catch (InterruptedException ex) {
+                log.warn("Interrupted whilst flushing config writes", ex);
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        log.debug("Flushed config writes. Writes received: {}, writes performed: {}",
+                writesReceived.get(), writesPerformed.get());
+        return true;
+    }
+
+    long getWritesReceived() {
+        return writesReceived.get();
+    }
+
+    long getWritesPerformed() {
+        return writesPerformed.get();
+    }
+
+    private static String pendingWriteKey(String configGroup, String configKey) {
+        return configGroup + "." + configKey;
+    }
+
+    // NB: technically there's a race condition because it's possible that the client could shut down before the call
+    // to the ConfigManager is made. However, us trying to react to a client shutdown by writing all the remaining
+    // writes won't work since the ConfigManager is the first thing to react to a client shutdown and won't perform any
+    // new writes once it has.
+    // Not very likely to happen anyway since it basically requires user to do something in game (to trigger plugin) and
+    // then quickly (within the debounce window) close the client.
+    private void runWriteLoop() {
+        while (!Thread.interrupted()) {
+            PendingWrite write;
+            try {
+                write = takeNextDueWrite();
+                log.debug("Got write for {}.{}", write.configGroup, write.configKey);
+            } catch (InterruptedException ex) {
+                log.warn("ConfigWriter thread interrupted", ex);
+                break;
+            }
+            try {
+                writer.write(write.configGroup, write.configKey, write.data);
+                writesPerformed.incrementAndGet();
+            } catch (RuntimeException ex) {
+                log.error("Failed to write config for {}.{}", write.configGroup, write.configKey, ex);
+            } finally {
+                synchronized (lock) {
+                    writeInProgress = false;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private PendingWrite takeNextDueWrite() throws InterruptedException {
+        synchronized (lock) {
+            while (true) {
+                PendingWrite earliest = null;
+                for (PendingWrite w : pendingWrites.values()) {
+                    if (earliest == null || w.dueAtNanos - earliest.dueAtNanos < 0) {
+                        earliest = w;
+                    }
+                }
+                if (earliest == null) {
+                    lock.wait();
+                    continue;
+                }
+                long waitNanos = earliest.dueAtNanos - System.nanoTime();
+                if (waitNanos <= 0) {
+                    pendingWrites.remove(pendingWriteKey(earliest.configGroup, earliest.configKey));
+                    writeInProgress = true;
+                    return earliest;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, waitNanos);
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PendingWrite {
+        final String configGroup;
+        final String configKey;
+        Object data;
+        long dueAtNanos;
+    }
+}
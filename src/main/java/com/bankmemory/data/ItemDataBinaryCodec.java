@@ -0,0 +1,134 @@
+package com.bankmemory.data;
+
+import com.google.gson.JsonParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Compact encoding of item data: a format marker followed by base64 of the item count and then, for each item, the
+ * difference between its ID and the previous item's ID and then its quantity. All numbers are zig-zag varints, so
+ * small numbers (which most ID deltas and quantities are) take a byte or two instead of several characters each.
+ */
+class ItemDataBinaryCodec {
+
+    static final String FORMAT_MARKER_PREFIX = "b";
+    private static final int VERSION = 1;
+    private static final String FORMAT_MARKER = FORMAT_MARKER_PREFIX + VERSION + ":";
+    private static final String PARSE_EXCEPTION_MESSAGE = "Binary item data invalid";
+
+    private ItemDataBinaryCodec() {}
+
+    static boolean isBinaryFormat(String saveString) {
+        return saveString.startsWith(FORMAT_MARKER_PREFIX);
+    }
+
+    static String encode(List<BankItem> items) {
+        ByteWriter out = new ByteWriter(items.size() * 4 + 5);
+        out.writeVarInt(items.size());
+        int previousId = 0;
+        for (BankItem item : items) {
+            out.writeVarInt(zigZag(item.getItemId() - previousId));
+            out.writeVarInt(zigZag(item.getQuantity()));
+            previousId = item.getItemId();
+        }
+        return FORMAT_MARKER + out.toBase64();
+    }
+
+    static BankItemList decode(String saveString) throws JsonParseException {
+        if (!saveString.startsWith(FORMAT_MARKER)) {
+            throw new JsonParseException("Unsupported binary item data format version");
+        }
+
+        ByteReader in = ByteReader.fromBase64(saveString.substring(FORMAT_MARKER.length()));
+        int count = in.readVarInt();
+        // Every item takes at least 2 bytes, so anything bigger than this must be garbage
+        if (count < 0 || count > in.length() / 2) {
+            throw new JsonParseException(PARSE_EXCEPTION_MESSAGE);
+        }
+        BankItemList.Builder items = BankItemList.builderWithExpectedSize(count);
+        int previousId = 0;
+        for (int i = 0; i < count; i++) {
+            int itemId = previousId + unZigZag(in.readVarInt());
+            int quantity = unZigZag(in.readVarInt());
+            items.add(itemId, quantity);
+            previousId = itemId;
+        }
+        if (in.hasRemaining()) {
+            throw new JsonParseException(PARSE_EXCEPTION_MESSAGE);
+        }
+        return items.build();
+    }
+
+    static int zigZag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    static int unZigZag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    static class ByteWriter {
+        private byte[] buffer;
+        private int length = 0;
+
+        ByteWriter(int initialCapacity) {
+            buffer = new byte[initialCapacity];
+        }
+
+        void writeVarInt(int value) {
+            if (buffer.length - length < 5) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2 + 5);
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        String toBase64() {
+            return Base64.getEncoder().withoutPadding().encodeToString(Arrays.copyOf(buffer, length));
+        }
+    }
+
+    static class ByteReader {
+        private final byte[] bytes;
+        private int position = 0;
+
+        ByteReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        static ByteReader fromBase64(String base64) throws JsonParseException {
+            try {
+                return new ByteReader(Base64.getDecoder().decode(base64));
+            } catch (IllegalArgumentException ex) {
+                throw new JsonParseException(PARSE_EXCEPTION_MESSAGE, ex);
+            }
+        }
+
+        int length() {
+            return bytes.length;
+        }
+
+        int readVarInt() throws JsonParseException {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new JsonParseException(PARSE_EXCEPTION_MESSAGE);
+                }
+                byte b = bytes[position++];
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new JsonParseException(PARSE_EXCEPTION_MESSAGE);
+        }
+
+        boolean hasRemaining() {
+            return position < bytes.length;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.bankmemory.data;
+
+import com.bankmemory.ItemListDiffGenerator;
+import com.bankmemory.data.ItemDataBinaryCodec.ByteReader;
+import com.bankmemory.data.ItemDataBinaryCodec.ByteWriter;
+import com.google.gson.JsonParseException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes item data as the differences from some other (base) item data, which is much smaller than the full item
+ * data when the two are similar (e.g. two snapshots of the same bank taken a day apart).
+ * <p>
+ * Format is a marker, the content hash of the base item data, then base64 of zig-zag varints: the number of
+ * differences, then for each difference its item ID (as the difference from the previous one) and the quantity
+ * difference, plus the item's position in the full list if it's an item that isn't in the base item data.
+ */
+class ItemDataDelta {
+    private static final String FORMAT_MARKER = "d1:";
+    private static final ItemListDiffGenerator DIFF_GENERATOR = new ItemListDiffGenerator();
+
+    private ItemDataDelta() {}
+
+    static boolean isDelta(String encoded) {
+        return encoded.startsWith(FORMAT_MARKER);
+    }
+
+    static String getBaseContentHash(String encodedDelta) throws JsonParseException {
+        int hashEnd = encodedDelta.indexOf(':', FORMAT_MARKER.length());
+        if (!isDelta(encodedDelta) || hashEnd < 0) {
+            throw new JsonParseException("Item data delta invalid");
+        }
+        return encodedDelta.substring(FORMAT_MARKER.length(), hashEnd);
+    }
+
+    /**
+     * @return the delta, or null if the item data can't be rebuilt from a delta (e.g. if items have been moved around)
+     */
+    @Nullable
+    static String create(List<BankItem> base, String baseContentHash, List<BankItem> items) {
+        if (!hasUniqueIds(base) || !hasUniqueIds(items) || items.stream().anyMatch(i -> i.getQuantity() == 0)) {
+            return null;
+        }
+
+        Set<Integer> baseIds = new HashSet<>();
+        base.forEach(i -> baseIds.add(i.getItemId()));
+        Map<Integer, Integer> indexesById = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            indexesById.put(items.get(i).getItemId(), i);
+        }
+
+        List<BankItem> differences = DIFF_GENERATOR.findDifferencesBetween(base, items);
+        ByteWriter out = new ByteWriter(differences.size() * 6 + 5);
+        out.writeVarInt(differences.size());
+        int previousId = 0;
+        for (BankItem difference : differences) {
+            out.writeVarInt(ItemDataBinaryCodec.zigZag(difference.getItemId() - previousId));
+            out.writeVarInt(ItemDataBinaryCodec.zigZag(difference.getQuantity()));
+            if (!baseIds.contains(difference.getItemId())) {
+                out.writeVarInt(indexesById.get(difference.getItemId()));
+            }
+            previousId = difference.getItemId();
+        }
+        String delta = FORMAT_MARKER + baseContentHash + ":" + out.toBase64();
+
+        // Differences don't say anything about item order, so it's only usable if that comes out the same
+        return apply(base, delta).equals(items) ? delta : null;
+    }
+
+    static BankItemList apply(List<BankItem> base, String encodedDelta) throws JsonParseException {
+        String baseContentHash = getBaseContentHash(encodedDelta);
+        ByteReader in = ByteReader.fromBase64(
+                encodedDelta.substring(FORMAT_MARKER.length() + baseContentHash.length() + 1));
+
+        BankItemList baseItems = BankItemList.copyOf(base);
+        Set<Integer> baseIds = new HashSet<>();
+        for (int i = 0; i < baseItems.size(); i++) {
+            baseIds.add(baseItems.getItemId(i));
+        }
+        Map<Integer, Integer> quantityChanges = new HashMap<>();
+        TreeMap<Integer, BankItem> newItemsByIndex = new TreeMap<>();
+        int count = in.readVarInt();
+        int previousId = 0;
+        for (int i = 0; i < count; i++) {
+            int itemId = previousId + ItemDataBinaryCodec.unZigZag(in.readVarInt());
+            int quantityChange = ItemDataBinaryCodec.unZigZag(in.readVarInt());
+            if (baseIds.contains(itemId)) {
+                quantityChanges.put(itemId, quantityChange);
+            } else {
+                newItemsByIndex.put(in.readVarInt(), new BankItem(itemId, quantityChange));
+            }
+            previousId = itemId;
+        }
+        if (in.hasRemaining()) {
+            throw new JsonParseException("Item data delta invalid");
+        }
+
+        // New items go in at their index in the full list, so they're merged in as the list reaches that size
+        BankItemList.Builder items = BankItemList.builderWithExpectedSize(baseItems.size() + newItemsByIndex.size());
+        Iterator<Map.Entry<Integer, BankItem>> newItems = newItemsByIndex.entrySet().iterator();
+        Map.Entry<Integer, BankItem> nextNewItem = newItems.hasNext() ? newItems.next() : null;
+        for (int i = 0; i <= baseItems.size(); i++) {
+            while (nextNewItem != null && nextNewItem.getKey() == items.size()) {
+                items.add(nextNewItem.getValue().getItemId(), nextNewItem.getValue().getQuantity());
+                nextNewItem = newItems.hasNext() ? newItems.next() : null;
+            }
+            if (i == baseItems.size()) {
+                break;
+            }
+            int itemId = baseItems.getItemId(i);
+            Integer change = quantityChanges.get(itemId);
+            int quantity = baseItems.getQuantity(i);
+            if (change == null) {
+                items.add(itemId, quantity);
+            } else if (quantity + change != 0) {
+                items.add(itemId, quantity + change);
+            }
+        }
+        if (nextNewItem != null) {
+            throw new JsonParseException("Item data delta invalid");
+        }
+        return items.build();
+    }
+
+    private static boolean hasUniqueIds(List<BankItem> items) {
+        Set<Integer> ids = new HashSet<>();
+        for (BankItem item : items) {
+            if (!ids.add(item.getItemId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
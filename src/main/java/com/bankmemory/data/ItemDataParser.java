@@ -1,61 +1,124 @@
 package com.bankmemory.data;
 
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableList;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-import java.lang.reflect.Type;
-import java.util.ArrayList;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
+import javax.annotation.Nullable;
 
-class ItemDataParser implements JsonSerializer<ImmutableList<BankItem>>, JsonDeserializer<ImmutableList<BankItem>> {
+class ItemDataParser extends TypeAdapter<LazyItemData> {
 
     private static final String PARSE_EXCEPTION_MESSAGE = "Item data section format invalid";
+    private static final String CONTENT_HASH_REFERENCE_PREFIX = "h:";
+
+    @Nullable private final Function<String, String> itemDataLoader;
+
+    ItemDataParser() {
+        this(null);
+    }
+
+    /**
+     * @param itemDataLoader gets the encoded item data stored for a content hash, when item data in saves is written as
+     *                       a reference to the content hash rather than the item data itself
+     */
+    ItemDataParser(@Nullable Function<String, String> itemDataLoader) {
+        this.itemDataLoader = itemDataLoader;
+    }
 
     @Override
-    public JsonElement serialize(ImmutableList<BankItem> src, Type typeOfSrc, JsonSerializationContext context) {
-        String saveString = toSaveString(src);
-        return context.serialize(saveString);
+    public void write(JsonWriter out, LazyItemData src) throws IOException {
+        // The item data itself is stored separately, once for each content hash
+        out.value(CONTENT_HASH_REFERENCE_PREFIX + src.getContentHash());
     }
 
     String toSaveString(List<BankItem> items) {
-        StringBuilder sb = new StringBuilder();
-        for (BankItem item : items) {
-            sb.append(item.getItemId()).append(",").append(item.getQuantity()).append(",");
-        }
-        return sb.toString();
+        return ItemDataBinaryCodec.encode(items);
     }
 
     @Override
-    public ImmutableList<BankItem> deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        String saveString = json.getAsString();
-        return parseSaveString(saveString);
+    public LazyItemData read(JsonReader in) throws IOException {
+        String saveString = in.nextString();
+        if (saveString.startsWith(CONTENT_HASH_REFERENCE_PREFIX)) {
+            if (itemDataLoader == null) {
+                throw new JsonParseException("Can't load item data referenced by content hash");
+            }
+            return LazyItemData.ofContentHash(saveString.substring(CONTENT_HASH_REFERENCE_PREFIX.length()), itemDataLoader);
+        }
+        // Parsed when first needed
+        return LazyItemData.ofEncoded(saveString);
     }
 
-    ImmutableList<BankItem> parseSaveString(String saveString) throws JsonParseException {
+    BankItemList parseSaveString(String saveString) throws JsonParseException {
         if (Strings.isNullOrEmpty(saveString)) {
-            return ImmutableList.of();
+            return BankItemList.of();
+        }
+        if (ItemDataBinaryCodec.isBinaryFormat(saveString)) {
+            return ItemDataBinaryCodec.decode(saveString);
         }
+        return parseLegacySaveString(saveString);
+    }
+
+    /**
+     * Parses the original "id,quantity,id,quantity," format. Numbers are read straight out of the string into an int
+     * buffer, rather than splitting the string and boxing every number.
+     */
+    private BankItemList parseLegacySaveString(String saveString) throws JsonParseException {
+        // Trailing separators are ignored (like String.split does)
+        int end = saveString.length();
+        while (end > 0 && saveString.charAt(end - 1) == ',') {
+            end--;
+        }
+
+        int[] numbers = new int[end / 4 + 2];
+        int count = 0;
+        int pos = 0;
+        while (pos < end) {
+            boolean negative = false;
+            char first = saveString.charAt(pos);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                pos++;
+            }
+            if (pos >= end || saveString.charAt(pos) == ',') {
+                throw new JsonParseException(PARSE_EXCEPTION_MESSAGE);
+            }
+
+            // Accumulate negatively so Integer.MIN_VALUE can be parsed, same as Integer.parseInt does
+            int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+            int multiplyLimit = limit / 10;
+            int result = 0;
+            char c;
+            while (pos < end && (c = saveString.charAt(pos)) != ',') {
+                int digit = c - '0';
+                if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                    throw new JsonParseException(PARSE_EXCEPTION_MESSAGE);
+                }
+                result *= 10;
+                if (result < limit + digit) {
+                    throw new JsonParseException(PARSE_EXCEPTION_MESSAGE);
+                }
+                result -= digit;
+                pos++;
+            }
 
-        List<Integer> numbers = new ArrayList<>();
-        for (String num : saveString.split(",")) {
-            try {
-                numbers.add(Integer.parseInt(num));
-            } catch (NumberFormatException ex) {
-                throw new JsonParseException(PARSE_EXCEPTION_MESSAGE, ex);
+            if (count == numbers.length) {
+                numbers = Arrays.copyOf(numbers, numbers.length * 2);
             }
+            numbers[count++] = negative ? result : -result;
+            pos++; // Skip separator
         }
 
-        if (!(numbers.size() % 2 == 0)) {
+        if (!(count % 2 == 0)) {
             throw new JsonParseException(PARSE_EXCEPTION_MESSAGE);
         }
-        ImmutableList.Builder<BankItem> items = ImmutableList.builder();
-        for (int i = 0; i < numbers.size(); i += 2) {
-            items.add(new BankItem(numbers.get(i), numbers.get(i + 1)));
+        BankItemList.Builder items = BankItemList.builderWithExpectedSize(count / 2);
+        for (int i = 0; i < count; i += 2) {
+            items.add(numbers[i], numbers[i + 1]);
         }
         return items.build();
     }
@@ -0,0 +1,12 @@
+package com.bankmemory.data;
+
+import lombok.Value;
+
+/**
+ * How many of an item a bank save holds.
+ */
+@Value
+public class ItemHolding {
+    long saveId;
+    int quantity;
+}
@@ -0,0 +1,123 @@
+package com.bankmemory.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import lombok.AllArgsConstructor;
+
+/**
+ * Index of the saves that hold each item and how many of it they hold, so an item can be found in every bank
+ * without going through the items of all of them.
+ * <p>
+ * Adding or removing a save only replaces the entries of the items in that save. The entries themselves are never
+ * changed once made, so the index can be read from any thread without locking, but only one thread at a time may
+ * add or remove saves.
+ */
+class ItemHoldingsIndex {
+    private final Map<Integer, Holdings> holdingsByItemId = new ConcurrentHashMap<>();
+
+    void addSave(BankSave save) {
+        addSaves(Collections.singletonList(save));
+    }
+
+    void addSaves(List<BankSave> saves) {
+        // Each item's entry is built up and then replaced once, rather than being copied for every save that holds it
+        Map<Integer, HoldingsBuilder> builders = new HashMap<>();
+        for (BankSave save : saves) {
+            long saveId = save.getId();
+            BankItemList items = save.getItemData();
+            for (int i = 0; i < items.size(); i++) {
+                builders.computeIfAbsent(items.getItemId(i), id -> new HoldingsBuilder(holdingsByItemId.get(id)))
+                        .add(saveId, items.getQuantity(i));
+            }
+        }
+        builders.forEach((itemId, builder) -> holdingsByItemId.put(itemId, builder.build()));
+    }
+
+    void removeSave(BankSave save) {
+        long saveId = save.getId();
+        BankItemList items = save.getItemData();
+        for (int i = 0; i < items.size(); i++) {
+            holdingsByItemId.computeIfPresent(items.getItemId(i), (id, holdings) -> holdings.withRemoved(saveId));
+        }
+    }
+
+    List<ItemHolding> getHoldings(int itemId) {
+        Holdings holdings = holdingsByItemId.get(itemId);
+        if (holdings == null) {
+            return Collections.emptyList();
+        }
+        List<ItemHolding> result = new ArrayList<>(holdings.saveIds.length);
+        for (int i = 0; i < holdings.saveIds.length; i++) {
+            result.add(new ItemHolding(holdings.saveIds[i], holdings.quantities[i]));
+        }
+        return result;
+    }
+
+    @AllArgsConstructor
+    private static class Holdings {
+        final long[] saveIds;
+        final int[] quantities;
+
+        /**
+         * @return the holdings without the save, or null if that leaves none
+         */
+        @Nullable
+        Holdings withRemoved(long saveId) {
+            int index = 0;
+            while (index < saveIds.length && saveIds[index] != saveId) {
+                index++;
+            }
+            if (index == saveIds.length) {
+                // Item was in the save more than once and has already gone
+                return this;
+            }
+            if (saveIds.length == 1) {
+                return null;
+            }
+            long[] newSaveIds = new long[saveIds.length - 1];
+            int[] newQuantities = new int[quantities.length - 1];
+            System.arraycopy(saveIds, 0, newSaveIds, 0, index);
+            System.arraycopy(saveIds, index + 1, newSaveIds, index, newSaveIds.length - index);
+            System.arraycopy(quantities, 0, newQuantities, 0, index);
+            System.arraycopy(quantities, index + 1, newQuantities, index, newQuantities.length - index);
+            return new Holdings(newSaveIds, newQuantities);
+        }
+    }
+
+    private static class HoldingsBuilder {
+        long[] saveIds;
+        int[] quantities;
+        int size;
+
+        HoldingsBuilder(@Nullable Holdings existing) {
+            saveIds = existing == null ? new long[4] : Arrays.copyOf(existing.saveIds, existing.saveIds.length + 4);
+            quantities = existing == null ? new int[4] : Arrays.copyOf(existing.quantities, saveIds.length);
+            size = existing == null ? 0 : existing.saveIds.length;
+        }
+
+        void add(long saveId, int quantity) {
+            // Saves are added one after another, so if the item is in a save more than once, the save is the last one
+            if (size > 0 && saveIds[size - 1] == saveId) {
+                quantities[size - 1] += quantity;
+                return;
+            }
+            if (size == saveIds.length) {
+                saveIds = Arrays.copyOf(saveIds, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            saveIds[size] = saveId;
+            quantities[size] = quantity;
+            size++;
+        }
+
+        Holdings build() {
+            return new Holdings(Arrays.copyOf(saveIds, size), Arrays.copyOf(quantities, size));
+        }
+    }
+}
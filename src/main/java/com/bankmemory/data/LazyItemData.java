@@ -0,0 +1,169 @@
+package com.bankmemory.data;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonParseException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Item data of a bank save that's kept in its saved (encoded) form until it's first needed. Most saves are never
+ * looked at in a session, so this saves decoding every one of them when the plugin starts.
+ * <p>
+ * Item data is identified by a hash of its content. Item data with the same content is only held once in memory, no
+ * matter how many saves have it (e.g. a snapshot and the current bank it was taken from). Stored item data may be a
+ * delta against other item data, in which case that gets loaded (and decoded) too.
+ */
+@Slf4j
+final class LazyItemData {
+    private static final ItemDataParser PARSER = new ItemDataParser();
+    // Weak values so item data is forgotten once no save refers to it
+    private static final Cache<String, LazyItemData> INTERNED = CacheBuilder.newBuilder().weakValues().build();
+
+    @Nullable private String contentHash;
+    @Nullable private String encoded;
+    @Nullable private Function<String, String> encodedLoader;
+    @Nullable private BankItemList decoded;
+
+    private LazyItemData(
+            @Nullable String contentHash,
+            @Nullable String encoded,
+            @Nullable Function<String, String> encodedLoader,
+            @Nullable BankItemList decoded) {
+        this.contentHash = contentHash;
+        this.encoded = encoded;
+        this.encodedLoader = encodedLoader;
+        this.decoded = decoded;
+    }
+
+    /**
+     * Item data that's only encoded and hashed when it's needed (usually when it's written, off the client thread), so
+     * making a new save doesn't pay for that up front.
+     */
+    static LazyItemData of(List<BankItem> itemList) {
+        BankItemList items = BankItemList.copyOf(Objects.requireNonNull(itemList));
+        return new LazyItemData(null, null, null, items);
+    }
+
+    static LazyItemData ofEncoded(String encoded) {
+        return new LazyItemData(null, Objects.requireNonNull(encoded), null, null);
+    }
+
+    /**
+     * @param encodedLoader gets the encoded item data for a content hash, only called if the item data is needed
+     */
+    static LazyItemData ofContentHash(String contentHash, Function<String, String> encodedLoader) {
+        Objects.requireNonNull(contentHash);
+        Objects.requireNonNull(encodedLoader);
+        return intern(contentHash, () -> new LazyItemData(contentHash, null, encodedLoader, null));
+    }
+
+    private static LazyItemData intern(String contentHash, Callable<LazyItemData> creator) {
+        try {
+            return INTERNED.get(contentHash, creator);
+        } catch (ExecutionException ex) {
+            // Creators don't throw checked exceptions
+            throw new AssertionError(ex);
+        }
+    }
+
+    private static String hashOf(String encoded) {
+        return Hashing.sha256().hashString(encoded, StandardCharsets.UTF_8).toString();
+    }
+
+    synchronized BankItemList get() {
+        if (decoded == null) {
+            try {
+                decoded = decode(getEncoded());
+            } catch (JsonParseException ex) {
+                log.error("Bank save item data invalid. All is lost", ex);
+                decoded = BankItemList.of();
+            }
+            encodedLoader = null;
+        }
+        return decoded;
+    }
+
+    private BankItemList decode(String encoded) throws JsonParseException {
+        if (!ItemDataDelta.isDelta(encoded)) {
+            return PARSER.parseSaveString(encoded);
+        }
+        if (encodedLoader == null) {
+            throw new JsonParseException("No way of getting the base of item data delta");
+        }
+        LazyItemData base = ofContentHash(ItemDataDelta.getBaseContentHash(encoded), encodedLoader);
+        return ItemDataDelta.apply(base.get(), encoded);
+    }
+
+    synchronized boolean isDecoded() {
+        return decoded != null;
+    }
+
+    /**
+     * @return the saved form of the item data, which is never decoded and re-encoded if it didn't need to be decoded
+     */
+    synchronized String getEncoded() {
+        if (encoded == null) {
+            if (decoded != null) {
+                encoded = PARSER.toSaveString(decoded);
+            } else {
+                String loaded = encodedLoader.apply(contentHash);
+                if (loaded == null) {
+                    log.error("Item data missing for content hash {}", contentHash);
+                    loaded = "";
+                }
+                encoded = loaded;
+            }
+        }
+        return encoded;
+    }
+
+    synchronized String getContentHash() {
+        if (contentHash == null) {
+            // Hash of the data as it would be written now, so old formats get the same hash as new ones
+            String encodedNow = PARSER.toSaveString(get());
+            contentHash = hashOf(encodedNow);
+            if (encoded == null) {
+                encoded = encodedNow;
+            }
+            // Now the hash is known, hold the items once no matter how many saves have them
+            LazyItemData interned = intern(contentHash, () -> this);
+            if (interned != this && interned.isDecoded()) {
+                decoded = interned.get();
+            }
+        }
+        return contentHash;
+    }
+
+    synchronized boolean isContentHashKnown() {
+        return contentHash != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LazyItemData)) {
+            return false;
+        }
+        return getContentHash().equals(((LazyItemData) o).getContentHash());
+    }
+
+    @Override
+    public int hashCode() {
+        return getContentHash().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return get().toString();
+    }
+}
@@ -2,57 +2,94 @@ package com.bankmemory.data;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 
 @Slf4j
 @Singleton
 public class PluginDataStore {
 
+    private static final long JOURNAL_FLUSH_TIMEOUT_MILLIS = 500;
+
+    // Only held by writers, so changes are made one at a time. Readers just read the latest state
     private final Object dataLock = new Object();
-    private final Map<String, String> nameMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-    private final List<BankSave> currentBankList;
-    private final List<BankSave> snapshotBanksList;
+    private volatile State state;
+    // Kept up to date on its own thread, as adding and removing saves means decoding their items
+    private final ItemHoldingsIndex itemHoldings = new ItemHoldingsIndex();
+    private final ExecutorService itemHoldingsExecutor;
     private final ConfigReaderWriter configReaderWriter;
-    private final List<DataStoreUpdateListener> listeners = new ArrayList<>();
+    private final BankJournal bankJournal;
+    private final List<DataStoreUpdateListener> listeners = new CopyOnWriteArrayList<>();
 
     @Inject
+    PluginDataStore(ConfigReaderWriter configReaderWriter, BankJournal bankJournal) {
+        this(configReaderWriter, bankJournal, Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Bank Memory item index");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
     @VisibleForTesting
-    PluginDataStore(ConfigReaderWriter configReaderWriter) {
+    PluginDataStore(
+            ConfigReaderWriter configReaderWriter, BankJournal bankJournal, ExecutorService itemHoldingsExecutor) {
         this.configReaderWriter = configReaderWriter;
-        currentBankList = this.configReaderWriter.readCurrentBanks();
-        snapshotBanksList = this.configReaderWriter.readBankSnapshots();
-        nameMap.putAll(this.configReaderWriter.readNameMap());
+        this.bankJournal = bankJournal;
+        this.itemHoldingsExecutor = itemHoldingsExecutor;
+        state = new State(
+                this.configReaderWriter.readCurrentBanks(),
+                this.configReaderWriter.readBankSnapshots(),
+                this.configReaderWriter.readNameMap());
+        State initialState = state;
+        itemHoldingsExecutor.execute(() -> {
+            try {
+                itemHoldings.addSaves(initialState.currentBanks);
+                itemHoldings.addSaves(initialState.snapshotBanks);
+            } catch (RuntimeException ex) {
+                log.error("Failed to build item holdings index", ex);
+            }
+        });
     }
 
     public void registerDisplayNameForAccountId(String accountIdentifier, String displayName) {
-        List<DataStoreUpdateListener> listenersCopy;
         boolean nameMapChanged;
         boolean savesChanged = false;
         synchronized (dataLock) {
-            listenersCopy = new ArrayList<>(listeners);
-            Set<Map.Entry<String, String>> oldNameMapEntries = nameMap.entrySet();
+            State oldState = state;
 
             // Registering new display name for account ID
+            Map<String, String> nameMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            nameMap.putAll(oldState.nameMap);
             String oldValue = nameMap.put(accountIdentifier, displayName);
             nameMapChanged = !Objects.equals(oldValue, displayName);
             if (nameMapChanged) {
+                state = oldState.withNameMap(nameMap);
                 configReaderWriter.writeNameMap(nameMap);
             }
 
             // Claim existing bank saves for new style account ID if necessary
             if (nameMapChanged) {
-                Optional<String> oldStyleIdRegisteredForDisplayName = oldNameMapEntries.stream()
+                Optional<String> oldStyleIdRegisteredForDisplayName = oldState.nameMap.entrySet().stream()
                         .filter(e -> !e.getKey().startsWith(AccountIdentifier.ACCOUNT_HASH_ID_PREFIX))
                         .filter(e -> e.getValue().equals(displayName))
                         .findFirst()
@@ -63,183 +100,345 @@ public class PluginDataStore {
             }
         }
         if (nameMapChanged) {
-            listenersCopy.forEach(DataStoreUpdateListener::displayNameMapUpdated);
+            listeners.forEach(DataStoreUpdateListener::displayNameMapUpdated);
         }
         if (savesChanged) {
-            listenersCopy.forEach(DataStoreUpdateListener::currentBanksListChanged);
-            listenersCopy.forEach(DataStoreUpdateListener::snapshotBanksListChanged);
+            listeners.forEach(DataStoreUpdateListener::currentBanksListChanged);
+            listeners.forEach(DataStoreUpdateListener::snapshotBanksListChanged);
         }
     }
 
     private boolean claimExistingSavesForNewAccountId(String oldAccountId, String newAccountId) {
-        boolean currentBankSavesChanged = false;
-        boolean snapshotBankSavesChanged = false;
-
         synchronized (dataLock) {
-            for (int i = 0; i < this.currentBankList.size(); i++) {
-                BankSave existingSave = this.currentBankList.get(i);
-                if (existingSave.getAccountIdentifier().equals(oldAccountId)) {
-                    BankSave reclaimedSave = BankSave.withNewAccountId(newAccountId, existingSave);
-                    this.currentBankList.set(i, reclaimedSave);
-                    currentBankSavesChanged = true;
-                }
-            }
-            for (int i = 0; i < this.snapshotBanksList.size(); i++) {
-                BankSave existingSave = this.snapshotBanksList.get(i);
-                if (existingSave.getAccountIdentifier().equals(oldAccountId)) {
-                    BankSave reclaimedSave = BankSave.withNewAccountId(newAccountId, existingSave);
-                    this.snapshotBanksList.set(i, reclaimedSave);
-                    snapshotBankSavesChanged = true;
-                }
-            }
+            List<BankSave> currentBanks = new ArrayList<>(state.currentBanks);
+            List<BankSave> snapshotBanks = new ArrayList<>(state.snapshotBanks);
+            boolean currentBankSavesChanged = claimSaves(currentBanks, oldAccountId, newAccountId);
+            boolean snapshotBankSavesChanged = claimSaves(snapshotBanks, oldAccountId, newAccountId);
 
+            if (currentBankSavesChanged || snapshotBankSavesChanged) {
+                changeSaves(state.withCurrentBanks(currentBanks).withSnapshotBanks(snapshotBanks));
+            }
             if (currentBankSavesChanged) {
-                this.configReaderWriter.writeCurrentBanks(this.currentBankList);
+                this.configReaderWriter.writeCurrentBanks(state.currentBanks);
             }
             if (snapshotBankSavesChanged) {
-                this.configReaderWriter.writeBankSnapshots(this.snapshotBanksList);
+                this.configReaderWriter.writeBankSnapshots(state.snapshotBanks);
             }
+            return currentBankSavesChanged || snapshotBankSavesChanged;
         }
+    }
 
-        return currentBankSavesChanged || snapshotBankSavesChanged;
+    private static boolean claimSaves(List<BankSave> saves, String oldAccountId, String newAccountId) {
+        boolean changed = false;
+        for (int i = 0; i < saves.size(); i++) {
+            BankSave existingSave = saves.get(i);
+            if (existingSave.getAccountIdentifier().equals(oldAccountId)) {
+                saves.set(i, BankSave.withNewAccountId(newAccountId, existingSave));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Performs any data writes still waiting to be written, blocking for a bounded amount of time.
+     */
+    public void flushPendingWrites() {
+        bankJournal.awaitRecorded(JOURNAL_FLUSH_TIMEOUT_MILLIS);
+        configReaderWriter.flushWrites();
     }
 
     public DisplayNameMapper getDisplayNameMapper() {
-        synchronized (dataLock) {
-            return new DisplayNameMapper(nameMap);
-        }
+        return state.displayNameMapper;
     }
 
     public void addListener(DataStoreUpdateListener listener) {
-        synchronized (dataLock) {
-            listeners.add(listener);
-        }
+        listeners.add(listener);
     }
 
     public void removeListener(DataStoreUpdateListener listener) {
-        synchronized (dataLock) {
-            listeners.remove(listener);
-        }
+        listeners.remove(listener);
     }
 
     public Optional<BankSave> getDataForCurrentBank(BankWorldType worldType, String accountIdentifier) {
         if (Strings.isNullOrEmpty(accountIdentifier)) {
             return Optional.empty();
         }
-        synchronized (dataLock) {
-            return currentBankList.stream()
-                    .filter(s -> s.getWorldType() == worldType && s.getAccountIdentifier().equalsIgnoreCase(accountIdentifier))
-                    .findAny();
-        }
+        return Optional.ofNullable(state.currentBanksByAccount.get(AccountKey.of(worldType, accountIdentifier)));
     }
 
+    /**
+     * @return the current banks, most recently viewed first, which is never changed once returned
+     */
     public List<BankSave> getCurrentBanksList() {
-        synchronized (dataLock) {
-            return new ArrayList<>(currentBankList);
-        }
+        return state.currentBanks;
     }
 
+    /**
+     * @return the snapshots, newest first, which is never changed once returned
+     */
     public List<BankSave> getSnapshotBanksList() {
-        synchronized (dataLock) {
-            return new ArrayList<>(snapshotBanksList);
-        }
+        return state.snapshotBanks;
     }
 
     public Optional<BankSave> getBankSaveWithId(long id) {
-        synchronized (dataLock) {
-            return Stream.concat(currentBankList.stream(), snapshotBanksList.stream())
-                    .filter(s -> s.getId() == id)
-                    .findFirst();
+        State currentState = state;
+        BankSave currentBank = currentState.currentBanksById.get(id);
+        return Optional.ofNullable(currentBank != null ? currentBank : currentState.snapshotBanksById.get(id));
+    }
+
+    /**
+     * Finds how many of an item each current bank and snapshot holds, from an index of their items, so it's quick
+     * enough to call from any thread. The index is updated in the background whenever the saves change, so it may be
+     * a moment behind the latest saves.
+     *
+     * @return the IDs of the saves that hold the item and how many they hold, in no particular order
+     */
+    public List<ItemHolding> getItemHoldings(int itemId) {
+        return itemHoldings.getHoldings(itemId);
+    }
+
+    /**
+     * Finds what was in an account's bank at a given time, from the bank journal or, for times before the journal was
+     * kept, from the saves of that account.
+     *
+     * @param timestamp millis since the epoch
+     */
+    public Optional<BankSave> getBankAsOf(BankWorldType worldType, String accountIdentifier, long timestamp) {
+        if (Strings.isNullOrEmpty(accountIdentifier)) {
+            return Optional.empty();
         }
+        State currentState = state;
+        Optional<BankSave> fromSaves = Stream.concat(currentState.currentBanks.stream(), currentState.snapshotBanks.stream())
+                .filter(s -> s.getWorldType() == worldType && s.getAccountIdentifier().equalsIgnoreCase(accountIdentifier))
+                .filter(s -> s.getTimestamp() != 0 && s.getTimestamp() <= timestamp)
+                .max(Comparator.comparingLong(BankSave::getTimestamp));
+        Optional<BankSave> fromJournal = bankJournal.findBankAt(worldType, accountIdentifier, timestamp);
+        if (fromJournal.isPresent() && fromSaves.isPresent()) {
+            return fromJournal.get().getTimestamp() >= fromSaves.get().getTimestamp() ? fromJournal : fromSaves;
+        }
+        return fromJournal.isPresent() ? fromJournal : fromSaves;
     }
 
     public void currentBankViewed(long saveId) {
-        List<DataStoreUpdateListener> listenersCopy;
         boolean changed = false;
         synchronized (dataLock) {
-            listenersCopy = new ArrayList<>(listeners);
-
-            Optional<BankSave> save = this.currentBankList.stream().filter(s -> s.getId() == saveId).findFirst();
-            if (save.isPresent()) {
-                BankSave foundSave = save.get();
-                this.currentBankList.remove(foundSave);
-                this.currentBankList.add(0, foundSave);
-                configReaderWriter.writeCurrentBanks(currentBankList);
+            BankSave foundSave = state.currentBanksById.get(saveId);
+            if (foundSave != null) {
+                state = state.withCurrentBankMovedToTop(foundSave);
+                configReaderWriter.writeCurrentBanks(state.currentBanks);
                 changed = true;
             } else {
                 log.error("Claimed to view current bank with id " + saveId + " which wasn't found in list");
             }
         }
         if (changed) {
-            listenersCopy.forEach(DataStoreUpdateListener::currentBanksListOrderChanged);
+            listeners.forEach(DataStoreUpdateListener::currentBanksListOrderChanged);
         }
     }
 
     public void saveAsCurrentBank(BankSave newSave) {
-        List<DataStoreUpdateListener> listenersCopy;
         synchronized (dataLock) {
-            listenersCopy = new ArrayList<>(listeners);
             saveAsCurrentBankImpl(newSave);
         }
-        listenersCopy.forEach(DataStoreUpdateListener::currentBanksListChanged);
+        listeners.forEach(DataStoreUpdateListener::currentBanksListChanged);
     }
 
     private void saveAsCurrentBankImpl(BankSave newSave) {
+        List<BankSave> currentBanks = new ArrayList<>(state.currentBanks);
+
         // Check if there is a current bank for existing login and remove it
-        currentBankList.stream()
-                .filter(s -> s.getAccountIdentifier().equalsIgnoreCase(newSave.getAccountIdentifier() )
-                        && s.getWorldType() == newSave.getWorldType())
-                .findAny()
-                .ifPresent(currentBankList::remove);
+        BankSave existingSave = state.currentBanksByAccount.get(AccountKey.of(newSave));
+        if (existingSave != null) {
+            currentBanks.remove(existingSave);
+        }
 
         // Save new current bank at top of list
-        currentBankList.add(0, newSave);
-        configReaderWriter.writeCurrentBanks(currentBankList);
+        currentBanks.add(0, newSave);
+        changeSaves(state.withCurrentBanks(currentBanks));
+        configReaderWriter.writeCurrentBanks(state.currentBanks);
+        bankJournal.recordCurrentBank(newSave);
     }
 
     public void saveAsSnapshotBank(String newName, BankSave existingSave) {
-        List<DataStoreUpdateListener> listenersCopy;
         synchronized (dataLock) {
-            listenersCopy = new ArrayList<>(listeners);
-            snapshotBanksList.add(0, BankSave.snapshotFromExistingBank(newName, existingSave));
-            configReaderWriter.writeBankSnapshots(snapshotBanksList);
+            List<BankSave> snapshotBanks = new ArrayList<>(state.snapshotBanks);
+            BankSave snapshot = BankSave.snapshotFromExistingBank(newName, existingSave);
+            snapshotBanks.add(0, snapshot);
+            changeSaves(state.withSnapshotBanks(snapshotBanks));
+            configReaderWriter.writeBankSnapshots(state.snapshotBanks);
         }
-        listenersCopy.forEach(DataStoreUpdateListener::snapshotBanksListChanged);
+        listeners.forEach(DataStoreUpdateListener::snapshotBanksListChanged);
     }
 
     public void deleteBankSaveWithId(long saveId) {
-        List<DataStoreUpdateListener> listenersCopy;
         boolean currentBanksChanged = false;
         boolean snapshotBanksChanged = false;
         synchronized (dataLock) {
-            listenersCopy = new ArrayList<>(listeners);
-
-            if (PluginDataStore.removeBankSaveWithIdFromList(saveId, currentBankList)) {
-                configReaderWriter.writeCurrentBanks(currentBankList);
+            BankSave currentBank = state.currentBanksById.get(saveId);
+            if (currentBank != null) {
+                List<BankSave> currentBanks = new ArrayList<>(state.currentBanks);
+                currentBanks.remove(currentBank);
+                changeSaves(state.withCurrentBanks(currentBanks));
+                configReaderWriter.writeCurrentBanks(state.currentBanks);
                 currentBanksChanged = true;
             }
-            if (PluginDataStore.removeBankSaveWithIdFromList(saveId, snapshotBanksList)) {
-                configReaderWriter.writeBankSnapshots(snapshotBanksList);
+            BankSave snapshot = state.snapshotBanksById.get(saveId);
+            if (snapshot != null) {
+                List<BankSave> snapshotBanks = new ArrayList<>(state.snapshotBanks);
+                snapshotBanks.remove(snapshot);
+                changeSaves(state.withSnapshotBanks(snapshotBanks));
+                configReaderWriter.writeBankSnapshots(state.snapshotBanks);
                 snapshotBanksChanged = true;
             }
         }
         if (currentBanksChanged) {
-            listenersCopy.forEach(DataStoreUpdateListener::currentBanksListChanged);
+            listeners.forEach(DataStoreUpdateListener::currentBanksListChanged);
         } else if (snapshotBanksChanged) {
-            listenersCopy.forEach(DataStoreUpdateListener::snapshotBanksListChanged);
+            listeners.forEach(DataStoreUpdateListener::snapshotBanksListChanged);
         } else {
             log.error("Tried deleting missing bank save: {}", saveId);
         }
     }
 
-    private static boolean removeBankSaveWithIdFromList(long id, List<BankSave> saveList) {
-        Optional<BankSave> save = saveList.stream()
-                .filter(s -> s.getId() == id)
-                .findFirst();
-        if (save.isPresent()) {
-            saveList.remove(save.get());
-            return true;
+    /**
+     * Replaces the state with one that has different saves, and passes just the saves that were added or removed on
+     * to the item holdings index. Must hold the data lock, so the index gets the changes in the order they were made.
+     */
+    private void changeSaves(State newState) {
+        State oldState = state;
+        state = newState;
+        List<BankSave> removed = savesOnlyIn(oldState, newState);
+        List<BankSave> added = savesOnlyIn(newState, oldState);
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            itemHoldingsExecutor.execute(() -> {
+                try {
+                    removed.forEach(itemHoldings::removeSave);
+                    itemHoldings.addSaves(added);
+                } catch (RuntimeException ex) {
+                    log.error("Failed to update item holdings index", ex);
+                }
+            });
+        }
+    }
+
+    private static List<BankSave> savesOnlyIn(State state, State otherState) {
+        Set<BankSave> otherSaves = Collections.newSetFromMap(new IdentityHashMap<>());
+        otherSaves.addAll(otherState.currentBanks);
+        otherSaves.addAll(otherState.snapshotBanks);
+        List<BankSave> saves = new ArrayList<>();
+        Stream.concat(state.currentBanks.stream(), state.snapshotBanks.stream())
+                .filter(s -> !otherSaves.contains(s))
+                .forEach(saves::add);
+        return saves;
+    }
+
+    /**
+     * Everything in the data store at one point in time, along with indexes of it. It's never changed, just replaced
+     * with a new one, so it can be read from any thread without locking.
+     * <p>
+     * Changing a save list copies the list and builds its indexes again, which is O(n) in the size of that list. The
+     * lists are one current bank per account plus the user's snapshots, so they're short, and the copy is what lets
+     * readers go without locking. Moving a current bank to the top keeps the indexes, as the saves are the same.
+     */
+    private static final class State {
+        final ImmutableList<BankSave> currentBanks;
+        final ImmutableList<BankSave> snapshotBanks;
+        final Map<String, String> nameMap;
+        final DisplayNameMapper displayNameMapper;
+        final Map<Long, BankSave> currentBanksById;
+        final Map<Long, BankSave> snapshotBanksById;
+        final Map<AccountKey, BankSave> currentBanksByAccount;
+
+        State(List<BankSave> currentBanks, List<BankSave> snapshotBanks, Map<String, String> nameMap) {
+            this(ImmutableList.copyOf(currentBanks), ImmutableList.copyOf(snapshotBanks), copyNameMap(nameMap));
+        }
+
+        private State(
+                ImmutableList<BankSave> currentBanks,
+                ImmutableList<BankSave> snapshotBanks,
+                Map<String, String> nameMap) {
+            this(currentBanks, snapshotBanks, nameMap, new DisplayNameMapper(nameMap),
+                    indexById(currentBanks), indexById(snapshotBanks), indexByAccount(currentBanks));
+        }
+
+        private State(
+                ImmutableList<BankSave> currentBanks,
+                ImmutableList<BankSave> snapshotBanks,
+                Map<String, String> nameMap,
+                DisplayNameMapper displayNameMapper,
+                Map<Long, BankSave> currentBanksById,
+                Map<Long, BankSave> snapshotBanksById,
+                Map<AccountKey, BankSave> currentBanksByAccount) {
+            this.currentBanks = currentBanks;
+            this.snapshotBanks = snapshotBanks;
+            this.nameMap = nameMap;
+            this.displayNameMapper = displayNameMapper;
+            this.currentBanksById = currentBanksById;
+            this.snapshotBanksById = snapshotBanksById;
+            this.currentBanksByAccount = currentBanksByAccount;
+        }
+
+        State withCurrentBanks(List<BankSave> newCurrentBanks) {
+            ImmutableList<BankSave> banks = ImmutableList.copyOf(newCurrentBanks);
+            return new State(banks, snapshotBanks, nameMap, displayNameMapper,
+                    indexById(banks), snapshotBanksById, indexByAccount(banks));
+        }
+
+        State withCurrentBankMovedToTop(BankSave save) {
+            List<BankSave> banks = new ArrayList<>(currentBanks);
+            banks.remove(save);
+            banks.add(0, save);
+            // Same saves, so the same indexes, unless the account somehow has another current bank that was first
+            Map<AccountKey, BankSave> byAccount = currentBanksByAccount.get(AccountKey.of(save)) == save
+                    ? currentBanksByAccount : indexByAccount(banks);
+            return new State(ImmutableList.copyOf(banks), snapshotBanks, nameMap, displayNameMapper,
+                    currentBanksById, snapshotBanksById, byAccount);
+        }
+
+        State withSnapshotBanks(List<BankSave> newSnapshotBanks) {
+            ImmutableList<BankSave> banks = ImmutableList.copyOf(newSnapshotBanks);
+            return new State(currentBanks, banks, nameMap, displayNameMapper,
+                    currentBanksById, indexById(banks), currentBanksByAccount);
+        }
+
+        State withNameMap(Map<String, String> newNameMap) {
+            Map<String, String> names = copyNameMap(newNameMap);
+            return new State(currentBanks, snapshotBanks, names, new DisplayNameMapper(names),
+                    currentBanksById, snapshotBanksById, currentBanksByAccount);
+        }
+
+        private static Map<String, String> copyNameMap(Map<String, String> nameMap) {
+            TreeMap<String, String> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            copy.putAll(nameMap);
+            return Collections.unmodifiableMap(copy);
+        }
+
+        private static Map<Long, BankSave> indexById(List<BankSave> saves) {
+            Map<Long, BankSave> byId = new HashMap<>();
+            saves.forEach(s -> byId.putIfAbsent(s.getId(), s));
+            return Collections.unmodifiableMap(byId);
+        }
+
+        private static Map<AccountKey, BankSave> indexByAccount(List<BankSave> currentBanks) {
+            Map<AccountKey, BankSave> byAccount = new HashMap<>();
+            // If an account somehow has more than one current bank, the first in the list is the one that's used
+            currentBanks.forEach(s -> byAccount.putIfAbsent(AccountKey.of(s), s));
+            return Collections.unmodifiableMap(byAccount);
+        }
+    }
+
+    @Value
+    private static class AccountKey {
+        BankWorldType worldType;
+        String lowerCaseAccountIdentifier;
+
+        static AccountKey of(BankWorldType worldType, String accountIdentifier) {
+            return new AccountKey(worldType, accountIdentifier.toLowerCase(Locale.ROOT));
+        }
+
+        static AccountKey of(BankSave save) {
+            return of(save.getWorldType(), save.getAccountIdentifier());
         }
-        return false;
     }
 }
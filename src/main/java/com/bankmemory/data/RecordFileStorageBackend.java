@@ -0,0 +1,358 @@
+package com.bankmemory.data;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import javax.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores data in a file of its own, which every change is appended to as a record. This makes a write cost the size of
+ * the data written, rather than a rewrite of everything like the RuneLite config does.
+ * <p>
+ * Every record has a checksum, so a record that was only partly written (e.g. the client was killed mid-write) is
+ * detected and dropped when the file is read. A file that can't be read at all is moved aside and the data starts
+ * empty, rather than stopping the plugin from starting. Once the file is mostly records that have been overwritten since, it's
+ * compacted on a background thread by rewriting just the current data to a new file.
+ */
+@Slf4j
+class RecordFileStorageBackend implements StorageBackend {
+    private static final int FILE_MAGIC = 0x424D5231; // "BMR1"
+    private static final byte SET_RECORD = 1;
+    private static final byte UNSET_RECORD = 2;
+    // Record length + checksum
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final long MIN_COMPACTION_FILE_SIZE = 256 * 1024;
+    private static final int MAX_WASTED_SPACE_RATIO = 2;
+    private static final String UNREADABLE_FILE_SUFFIX = ".unreadable";
+
+    private final File file;
+    private final Map<String, String> data = new HashMap<>();
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Bank Memory data file compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+    @Nullable private DataOutputStream out;
+    private long fileSize;
+    // Size of the records in the file that hold the current data, i.e. what the file would be after compaction
+    private long liveSize;
+    private boolean compactionScheduled = false;
+    // Records appended whilst a compaction is writing the new file, so they can be appended to that too
+    @Nullable private List<byte[]> recordsDuringCompaction;
+    // Counts calls to clear, so a compaction that started before one knows its new file holds cleared data
+    private int clearCount;
+
+    RecordFileStorageBackend(File file) {
+        this.file = file;
+        read();
+    }
+
+    @Nullable
+    @Override
+    public synchronized String get(String key) {
+        return data.get(key);
+    }
+
+    @Override
+    public synchronized void set(String key, String value) {
+        String previous = data.put(key, value);
+        if (previous != null) {
+            liveSize -= recordSize(key, previous);
+        }
+        liveSize += recordSize(key, value);
+        append(createRecord(SET_RECORD, key, value));
+    }
+
+    @Override
+    public synchronized void unset(String key) {
+        String previous = data.remove(key);
+        if (previous == null) {
+            return;
+        }
+        liveSize -= recordSize(key, previous);
+        append(createRecord(UNSET_RECORD, key, null));
+    }
+
+    @Override
+    public synchronized List<String> getKeys() {
+        return new ArrayList<>(data.keySet());
+    }
+
+    /**
+     * Removes all of the data by deleting the file, so it isn't read again.
+     */
+    @Override
+    public synchronized void clear() {
+        data.clear();
+        liveSize = 0;
+        fileSize = 0;
+        clearCount++;
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void read() {
+        if (!file.exists() || file.length() == 0) {
+            return;
+        }
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a Bank Memory data file: " + file);
+            }
+            validLength = 4;
+            while (true) {
+                int length = in.readInt();
+                long checksum = in.readInt() & 0xFFFFFFFFL;
+                if (length <= 0 || length > file.length() - validLength) {
+                    log.warn("Bank Memory data file has an invalid record length, ignoring the rest of the file");
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (checksum(payload) != checksum) {
+                    log.warn("Bank Memory data file has a record with a bad checksum, ignoring the rest of the file");
+                    break;
+                }
+                if (!applyRecord(payload)) {
+                    log.warn("Bank Memory data file has a record of an unknown type, ignoring the rest of the file");
+                    break;
+                }
+                validLength += RECORD_HEADER_SIZE + length;
+            }
+        } catch (EOFException ex) {
+            // Reached the end of the file, possibly part way through a record that was never finished
+        } catch (IOException ex) {
+            log.error("Couldn't read Bank Memory data file {}, starting with no data", file, ex);
+            moveAsideUnreadableFile();
+            return;
+        }
+
+        if (validLength == 0) {
+            log.error("Bank Memory data file {} is too short to be a data file, starting with no data", file);
+            moveAsideUnreadableFile();
+            return;
+        }
+        if (validLength < file.length()) {
+            log.warn("Dropping {} bytes of invalid records from the end of {}", file.length() - validLength, file);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        fileSize = validLength;
+    }
+
+    /**
+     * Keeps the file in case the data can be recovered by hand, but out of the way so a new one is started.
+     */
+    private void moveAsideUnreadableFile() {
+        data.clear();
+        liveSize = 0;
+        File movedFile = new File(file.getPath() + UNREADABLE_FILE_SUFFIX);
+        try {
+            Files.move(file.toPath(), movedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            log.warn("Moved unreadable Bank Memory data file to {}", movedFile);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @return false if the record isn't of a known type, in which case it's not applied
+     */
+    private boolean applyRecord(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String key = readString(in);
+        String previous;
+        if (type == SET_RECORD) {
+            String value = readString(in);
+            previous = data.put(key, value);
+            liveSize += recordSize(key, value);
+        } else if (type == UNSET_RECORD) {
+            previous = data.remove(key);
+        } else {
+            return false;
+        }
+        if (previous != null) {
+            liveSize -= recordSize(key, previous);
+        }
+        return true;
+    }
+
+    private void append(byte[] record) {
+        try {
+            if (out == null) {
+                out = openForAppend();
+            }
+            out.write(record);
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        fileSize += record.length;
+        if (recordsDuringCompaction != null) {
+            recordsDuringCompaction.add(record);
+        }
+        if (!compactionScheduled && fileSize > MIN_COMPACTION_FILE_SIZE
+                && fileSize > liveSize * MAX_WASTED_SPACE_RATIO) {
+            compactionScheduled = true;
+            compactionExecutor.execute(() -> {
+                try {
+                    compact();
+                } catch (RuntimeException ex) {
+                    log.error("Failed to compact Bank Memory data file", ex);
+                }
+            });
+        }
+    }
+
+    private DataOutputStream openForAppend() throws IOException {
+        boolean newFile = !file.exists() || file.length() == 0;
+        if (newFile && file.getParentFile() != null) {
+            Files.createDirectories(file.getParentFile().toPath());
+        }
+        DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        if (newFile) {
+            stream.writeInt(FILE_MAGIC);
+            fileSize = 4;
+        }
+        return stream;
+    }
+
+    /**
+     * Rewrites the file with only the records needed for the current data.
+     */
+    @VisibleForTesting
+    void compact() {
+        compact(() -> {});
+    }
+
+    /**
+     * @param beforeReplacingFile run once the bulk of the new file is written, just before it replaces the file
+     */
+    @VisibleForTesting
+    void compact(Runnable beforeReplacingFile) {
+        Map<String, String> dataCopy;
+        int clearCountAtStart;
+        synchronized (this) {
+            dataCopy = new HashMap<>(data);
+            recordsDuringCompaction = new ArrayList<>();
+            clearCountAtStart = clearCount;
+        }
+
+        // Writing the bulk of the new file doesn't block reads and writes
+        File compactedFile = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream compacted = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(compactedFile)))) {
+                compacted.writeInt(FILE_MAGIC);
+                for (Map.Entry<String, String> entry : dataCopy.entrySet()) {
+                    compacted.write(createRecord(SET_RECORD, entry.getKey(), entry.getValue()));
+                }
+            }
+            beforeReplacingFile.run();
+
+            synchronized (this) {
+                if (clearCount != clearCountAtStart) {
+                    // Data was cleared since the new file was started, so it would bring the cleared data back
+                    Files.deleteIfExists(compactedFile.toPath());
+                    log.debug("Bank Memory data file was cleared whilst compacting, dropped the compacted file");
+                    return;
+                }
+                try (FileOutputStream compacted = new FileOutputStream(compactedFile, true)) {
+                    for (byte[] record : recordsDuringCompaction) {
+                        compacted.write(record);
+                    }
+                    compacted.getFD().sync();
+                }
+                if (out != null) {
+                    out.close();
+                    out = null;
+                }
+                Files.move(compactedFile.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                long oldSize = fileSize;
+                fileSize = file.length();
+                log.debug("Compacted Bank Memory data file from {} to {} bytes", oldSize, fileSize);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            synchronized (this) {
+                recordsDuringCompaction = null;
+                compactionScheduled = false;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized long getFileSize() {
+        return fileSize;
+    }
+
+    private static byte[] createRecord(byte type, String key, @Nullable String value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = 1 + 4 + keyBytes.length + (valueBytes == null ? 0 : 4 + valueBytes.length);
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+        payload.put(type).putInt(keyBytes.length).put(keyBytes);
+        if (valueBytes != null) {
+            payload.putInt(valueBytes.length).put(valueBytes);
+        }
+        byte[] payloadBytes = payload.array();
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + payloadLength)
+                .putInt(payloadLength)
+                .putInt((int) checksum(payloadBytes))
+                .put(payloadBytes)
+                .array();
+    }
+
+    private static long recordSize(String key, String value) {
+        // Close enough for deciding when to compact, without encoding the strings again
+        return RECORD_HEADER_SIZE + 1 + 4 + key.length() + 4 + value.length();
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+}
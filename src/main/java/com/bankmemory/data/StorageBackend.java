@@ -0,0 +1,25 @@
+package com.bankmemory.data;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Where the plugin's data is persisted: a simple string key-value store.
+ */
+interface StorageBackend {
+    @Nullable
+    String get(String key);
+
+    void set(String key, String value);
+
+    void unset(String key);
+
+    List<String> getKeys();
+
+    /**
+     * Removes all of the data.
+     */
+    default void clear() {
+        getKeys().forEach(this::unset);
+    }
+}
@@ -0,0 +1,130 @@
+package com.bankmemory;
+
+import com.bankmemory.data.AccountIdentifier;
+import com.bankmemory.data.BankItem;
+import com.bankmemory.data.BankSave;
+import com.bankmemory.data.BankWorldType;
+import com.bankmemory.data.DataStoreUpdateListener;
+import com.bankmemory.data.DisplayNameMapper;
+import com.bankmemory.data.PluginDataStore;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.EnumSet;
+import java.util.List;
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.WorldType;
+import net.runelite.api.widgets.ComponentID;
+import net.runelite.client.ui.overlay.tooltip.Tooltip;
+import net.runelite.client.ui.overlay.tooltip.TooltipManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BankMemoryItemOverlayTest {
+    private static final long ACCOUNT_HASH = 123;
+    private static final String ACCOUNT_ID = AccountIdentifier.fromAccountHash(ACCOUNT_HASH);
+
+    @Mock private Client client;
+    @Mock private BankMemoryConfig config;
+    @Mock private TooltipManager tooltipManager;
+    @Mock private PluginDataStore dataStore;
+    @Mock private DisplayNameMapper nameMapper;
+    @Mock private MenuEntry menuEntry;
+    @Mock private ItemContainer inventory;
+
+    private BankMemoryItemOverlay overlay;
+
+    @Before
+    public void before() {
+        when(config.showTooltips()).thenReturn(true);
+        when(client.getMenuEntries()).thenReturn(new MenuEntry[]{menuEntry});
+        when(menuEntry.getParam1()).thenReturn(ComponentID.INVENTORY_CONTAINER);
+        when(menuEntry.getParam0()).thenReturn(0);
+        when(client.getItemContainer(InventoryID.INVENTORY)).thenReturn(inventory);
+        when(inventory.getItem(0)).thenReturn(new Item(995, 10));
+        when(client.getAccountHash()).thenReturn(ACCOUNT_HASH);
+        when(client.getWorld()).thenReturn(301);
+        when(client.getWorldType()).thenReturn(EnumSet.noneOf(WorldType.class));
+        when(dataStore.getDisplayNameMapper()).thenReturn(nameMapper);
+        when(nameMapper.map(anyString())).thenReturn("Alt");
+        overlay = new BankMemoryItemOverlay(
+                client, config, tooltipManager, dataStore, MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void testRender_givenItemOnSeveralAccounts_showsEachAccountAndTotal() {
+        BankSave ownBank = save(ACCOUNT_ID, 100);
+        when(dataStore.getCurrentBanksList()).thenReturn(List.of(ownBank, save("alt", 50)));
+        overlay.startUp();
+
+        overlay.render(null);
+
+        assertThat(renderedTooltips(1).get(0).getText(), is("Banked: 100</br>Alt: 50</br>Total: 150"));
+    }
+
+    @Test
+    public void testRender_givenSameItemHovered_reusesTooltip() {
+        BankSave ownBank = save(ACCOUNT_ID, 100);
+        when(dataStore.getCurrentBanksList()).thenReturn(List.of(ownBank));
+        overlay.startUp();
+
+        overlay.render(null);
+        overlay.render(null);
+
+        List<Tooltip> tooltips = renderedTooltips(2);
+        assertThat(tooltips.get(1), sameInstance(tooltips.get(0)));
+    }
+
+    @Test
+    public void testRender_afterCurrentBanksChanged_showsNewCount() {
+        ArgumentCaptor<DataStoreUpdateListener> listener = ArgumentCaptor.forClass(DataStoreUpdateListener.class);
+        BankSave oldBank = save(ACCOUNT_ID, 100);
+        BankSave newBank = save(ACCOUNT_ID, 5);
+        when(dataStore.getCurrentBanksList()).thenReturn(List.of(oldBank));
+        overlay.startUp();
+        verify(dataStore).addListener(listener.capture());
+        overlay.render(null);
+
+        when(dataStore.getCurrentBanksList()).thenReturn(List.of(newBank));
+        listener.getValue().currentBanksListChanged();
+        overlay.render(null);
+
+        assertThat(renderedTooltips(2).get(1).getText(), is("Banked: 5"));
+    }
+
+    @Test
+    public void testRender_givenItemOnlyOnOtherAccounts_showsThemAndTotal() {
+        when(dataStore.getCurrentBanksList()).thenReturn(List.of(save("alt", 50), save("alt2", 7)));
+        overlay.startUp();
+
+        overlay.render(null);
+
+        assertThat(renderedTooltips(1).get(0).getText(), is("Alt: 50</br>Alt: 7</br>Total: 57"));
+    }
+
+    private List<Tooltip> renderedTooltips(int count) {
+        ArgumentCaptor<Tooltip> tooltips = ArgumentCaptor.forClass(Tooltip.class);
+        verify(tooltipManager, times(count)).add(tooltips.capture());
+        return tooltips.getAllValues();
+    }
+
+    private static BankSave save(String accountId, int coins) {
+        return new BankSave(BankWorldType.DEFAULT, accountId, null, "Monday", ImmutableList.of(new BankItem(995, coins)));
+    }
+}
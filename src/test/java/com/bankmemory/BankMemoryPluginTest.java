@@ -38,6 +38,7 @@ public class BankMemoryPluginTest {
     @Mock private CurrentBankPanelController currentBankPanelController;
     @Mock private SavedBanksPanelController savedBanksPanelController;
     @Mock private BankDiffPanelController bankDiffPanelController;
+    @Mock private BankTimelinePanelController bankTimelinePanelController;
     @Mock private BankMemoryPluginPanel pluginPanel;
     @Mock private Injector pluginInjector;
 
@@ -51,6 +52,7 @@ public class BankMemoryPluginTest {
         when(pluginInjector.getInstance(CurrentBankPanelController.class)).thenReturn(currentBankPanelController);
         when(pluginInjector.getInstance(SavedBanksPanelController.class)).thenReturn(savedBanksPanelController);
         when(pluginInjector.getInstance(BankDiffPanelController.class)).thenReturn(bankDiffPanelController);
+        when(pluginInjector.getInstance(BankTimelinePanelController.class)).thenReturn(bankTimelinePanelController);
         when(pluginPanel.getSavedBanksTopPanel()).thenReturn(mock(BankSavesTopPanel.class));
     }
 
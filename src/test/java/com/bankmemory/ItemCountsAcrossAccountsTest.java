@@ -0,0 +1,95 @@
+package com.bankmemory;
+
+import com.bankmemory.ItemCountsAcrossAccounts.ItemCounts;
+import com.bankmemory.data.BankItem;
+import com.bankmemory.data.BankSave;
+import com.bankmemory.data.BankWorldType;
+import com.bankmemory.data.DisplayNameMapper;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ItemCountsAcrossAccountsTest {
+
+    @Mock private DisplayNameMapper nameMapper;
+
+    @Before
+    public void before() {
+        when(nameMapper.map(anyString())).thenAnswer(i -> "Name of " + i.getArgument(0));
+    }
+
+    @Test
+    public void testGet_givenItemInSeveralBanks_hasCountOfEachAccount() {
+        ItemCountsAcrossAccounts counts = ItemCountsAcrossAccounts.of(List.of(
+                save(BankWorldType.DEFAULT, "acc1", new BankItem(995, 100), new BankItem(4151, 1)),
+                save(BankWorldType.DEFAULT, "acc2", new BankItem(995, 50)),
+                save(BankWorldType.DEADMAN, "acc3", new BankItem(995, 7))), nameMapper);
+
+        ItemCounts coins = counts.get(BankWorldType.DEFAULT, 995);
+
+        assertThat(coins.getAccountCount(), is(2));
+        assertThat(coins.getAccountIdentifier(0), is("acc1"));
+        assertThat(coins.getDisplayName(0), is("Name of acc1"));
+        assertThat(coins.getQuantity(0), is(100));
+        assertThat(coins.getAccountIdentifier(1), is("acc2"));
+        assertThat(coins.getQuantity(1), is(50));
+        assertThat(coins.getTotal(), is(150L));
+        assertThat(counts.get(BankWorldType.DEFAULT, 4151).getQuantity(0), is(1));
+        assertThat(counts.get(BankWorldType.DEADMAN, 995).getAccountCount(), is(1));
+        assertThat(counts.get(BankWorldType.DEADMAN, 995).getQuantity(0), is(7));
+    }
+
+    @Test
+    public void testGet_givenItemInNoBank_returnsNull() {
+        ItemCountsAcrossAccounts counts = ItemCountsAcrossAccounts.of(List.of(
+                save(BankWorldType.DEFAULT, "acc1", new BankItem(995, 100))), nameMapper);
+
+        assertThat(counts.get(BankWorldType.DEFAULT, 4151), nullValue());
+        assertThat(counts.get(BankWorldType.DEADMAN, 995), nullValue());
+        assertThat(ItemCountsAcrossAccounts.EMPTY.get(BankWorldType.DEFAULT, 995), nullValue());
+    }
+
+    @Test
+    public void testGet_givenItemInBankTwice_addsUpQuantities() {
+        ItemCountsAcrossAccounts counts = ItemCountsAcrossAccounts.of(List.of(
+                save(BankWorldType.DEFAULT, "acc1", new BankItem(995, 100), new BankItem(995, 5))), nameMapper);
+
+        ItemCounts coins = counts.get(BankWorldType.DEFAULT, 995);
+
+        assertThat(coins.getAccountCount(), is(1));
+        assertThat(coins.getQuantity(0), is(105));
+    }
+
+    @Test
+    public void testWithCurrentBanks_givenOneBankChanged_updatesCountsInNewListOrder() {
+        BankSave acc1 = save(BankWorldType.DEFAULT, "acc1", new BankItem(995, 100));
+        BankSave acc2 = save(BankWorldType.DEFAULT, "acc2", new BankItem(995, 50));
+        ItemCountsAcrossAccounts counts = ItemCountsAcrossAccounts.of(List.of(acc1, acc2), nameMapper);
+        BankSave newAcc2 = save(BankWorldType.DEFAULT, "acc2", new BankItem(995, 20), new BankItem(4151, 1));
+
+        ItemCountsAcrossAccounts updated = counts.withCurrentBanks(List.of(newAcc2, acc1), nameMapper);
+
+        ItemCounts coins = updated.get(BankWorldType.DEFAULT, 995);
+        assertThat(coins.getAccountIdentifier(0), is("acc2"));
+        assertThat(coins.getQuantity(0), is(20));
+        assertThat(coins.getAccountIdentifier(1), is("acc1"));
+        assertThat(coins.getQuantity(1), is(100));
+        assertThat(updated.get(BankWorldType.DEFAULT, 4151).getAccountCount(), is(1));
+        assertThat(counts.get(BankWorldType.DEFAULT, 995).getQuantity(1), is(50));
+    }
+
+    private static BankSave save(BankWorldType worldType, String accountId, BankItem... items) {
+        return new BankSave(worldType, accountId, null, "Monday", ImmutableList.copyOf(items));
+    }
+}
@@ -0,0 +1,111 @@
+package com.bankmemory;
+
+import com.bankmemory.bankview.ItemListEntry;
+import com.bankmemory.data.BankItem;
+import com.bankmemory.data.BankItemList;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ItemDiffCacheTest {
+    private static final BankItemList BEFORE = BankItemList.copyOf(ImmutableList.of(
+            new BankItem(995, 100), new BankItem(4151, 1)));
+    private static final BankItemList AFTER = BankItemList.copyOf(ImmutableList.of(
+            new BankItem(995, 40), new BankItem(385, 3)));
+    private static final BankItemList DIFFERENCES = BankItemList.copyOf(ImmutableList.of(
+            new BankItem(995, -60), new BankItem(4151, -1), new BankItem(385, 3)));
+    private static final List<ItemListEntry> ENTRIES = ImmutableList.of(
+            new ItemListEntry("Coins", -60, null, -60, 0),
+            new ItemListEntry("Abyssal whip", -1, null, -1_500_000, -72_000),
+            new ItemListEntry("Shark", 3, null, 2_400, 270));
+
+    @Mock private ItemListDiffGenerator diffGenerator;
+    @Mock private Ticker ticker;
+
+    private ItemDiffCache diffCache;
+
+    @Before
+    public void before() {
+        // A new list each time, like the real generator
+        when(diffGenerator.findDifferencesBetween(any(), any()))
+                .thenAnswer(i -> BankItemList.copyOf(ImmutableList.copyOf(DIFFERENCES)));
+        diffCache = new ItemDiffCache(diffGenerator, ticker);
+    }
+
+    @Test
+    public void testFindDifferencesBetween_givenSameComparisonAgain_onlyWorksOutDifferencesOnce() {
+        diffCache.findDifferencesBetween("a", BEFORE, "b", AFTER);
+
+        assertThat(diffCache.findDifferencesBetween("a", BEFORE, "b", AFTER), is(DIFFERENCES));
+        verify(diffGenerator, times(1)).findDifferencesBetween(BEFORE, AFTER);
+    }
+
+    @Test
+    public void testFindDifferencesBetween_givenReversedComparison_negatesDifferences() {
+        diffCache.findDifferencesBetween("a", BEFORE, "b", AFTER);
+
+        BankItemList reversed = diffCache.findDifferencesBetween("b", AFTER, "a", BEFORE);
+
+        assertThat(reversed, is(ImmutableList.of(new BankItem(995, 60), new BankItem(4151, 1), new BankItem(385, -3))));
+        verify(diffGenerator, times(1)).findDifferencesBetween(any(), any());
+    }
+
+    @Test
+    public void testFindDifferencesBetween_givenManyOtherComparisonsSince_worksOutDifferencesAgain() {
+        diffCache.findDifferencesBetween("a", BEFORE, "b", AFTER);
+        for (int i = 0; i < 20; i++) {
+            diffCache.findDifferencesBetween("x" + i, BEFORE, "y" + i, AFTER);
+        }
+
+        diffCache.findDifferencesBetween("a", BEFORE, "b", AFTER);
+
+        verify(diffGenerator, times(22)).findDifferencesBetween(any(), any());
+    }
+
+    @Test
+    public void testGetEntries_givenEntriesPutForDifferences_givesThem() {
+        BankItemList differences = diffCache.findDifferencesBetween("a", BEFORE, "b", AFTER);
+        diffCache.putEntries("a", "b", differences, ENTRIES);
+
+        assertThat(diffCache.getEntries("a", "b"), is(ENTRIES));
+        assertThat(diffCache.getEntries("b", "a"), is(nullValue()));
+    }
+
+    @Test
+    public void testPutEntries_givenDifferencesNoLongerRemembered_doesNotRememberEntries() {
+        BankItemList differences = diffCache.findDifferencesBetween("a", BEFORE, "b", AFTER);
+        for (int i = 0; i < 20; i++) {
+            diffCache.findDifferencesBetween("x" + i, BEFORE, "y" + i, AFTER);
+        }
+        diffCache.findDifferencesBetween("a", BEFORE, "b", AFTER);
+
+        diffCache.putEntries("a", "b", differences, ENTRIES);
+
+        assertThat(diffCache.getEntries("a", "b"), is(nullValue()));
+    }
+
+    @Test
+    public void testGetEntries_givenEntriesPutLongAgo_givesNothing() {
+        BankItemList differences = diffCache.findDifferencesBetween("a", BEFORE, "b", AFTER);
+        when(ticker.read()).thenReturn(0L, TimeUnit.MINUTES.toNanos(1), TimeUnit.MINUTES.toNanos(10));
+        diffCache.putEntries("a", "b", differences, ENTRIES);
+
+        assertThat(diffCache.getEntries("a", "b"), is(ENTRIES));
+        assertThat(diffCache.getEntries("a", "b"), is(nullValue()));
+    }
+}
@@ -0,0 +1,103 @@
+package com.bankmemory;
+
+import com.bankmemory.data.BankItem;
+import com.bankmemory.data.BankItemList;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ItemDiffPatchTest {
+    private static final ItemListDiffGenerator DIFF_GENERATOR = new ItemListDiffGenerator();
+    private static final BankItemList BEFORE = items(
+            new BankItem(995, 100), new BankItem(4151, 1), new BankItem(561, 5), new BankItem(385, 10));
+    private static final BankItemList AFTER = items(
+            new BankItem(995, 40), new BankItem(561, 5), new BankItem(385, 13));
+    private static final BankItemList DIFFERENCES = items(
+            new BankItem(995, -60), new BankItem(4151, -1), new BankItem(385, 3));
+
+    @Test
+    public void testCreate_givenNoQuantityChanges_isEmpty() {
+        ItemDiffPatch patch = ItemDiffPatch.create(DIFFERENCES, ImmutableMap.of(4151, 0), BEFORE, AFTER);
+
+        assertThat(patch.isEmpty(), is(true));
+        assertThat(patch.getPatchedDifferences(), is(DIFFERENCES));
+    }
+
+    @Test
+    public void testCreate_givenChangeToItemInDifferences_changesItsRow() {
+        ItemDiffPatch patch = patchForNewAfter(items(
+                new BankItem(995, 50), new BankItem(561, 5), new BankItem(385, 13)));
+
+        assertThat(patch.getChangedRows(), is(ImmutableMap.of(0, new BankItem(995, -50))));
+        assertThat(patch.getRemovedRows(), is(ImmutableList.of()));
+        assertThat(patch.getAddedRows(), is(ImmutableMap.of()));
+        assertThat(patch.getPatchedDifferences(), is(ImmutableList.of(
+                new BankItem(995, -50), new BankItem(4151, -1), new BankItem(385, 3))));
+    }
+
+    @Test
+    public void testCreate_givenChangeCancellingOutDifference_removesItsRow() {
+        ItemDiffPatch patch = patchForNewAfter(items(
+                new BankItem(995, 40), new BankItem(561, 5), new BankItem(385, 13), new BankItem(4151, 1)));
+
+        assertThat(patch.getChangedRows(), is(ImmutableMap.of()));
+        assertThat(patch.getRemovedRows(), is(ImmutableList.of(1)));
+        assertThat(patch.getPatchedDifferences(), is(ImmutableList.of(new BankItem(995, -60), new BankItem(385, 3))));
+    }
+
+    @Test
+    public void testCreate_givenChangeToItemNotInDifferences_addsItWhereNewDiffWouldHaveIt() {
+        BankItemList newAfter = items(
+                new BankItem(995, 0), new BankItem(561, 7), new BankItem(385, 10), new BankItem(1127, 1));
+
+        ItemDiffPatch patch = patchForNewAfter(newAfter);
+
+        assertThat(patch.getChangedRows(), is(ImmutableMap.of(0, new BankItem(995, -100))));
+        assertThat(patch.getRemovedRows(), is(ImmutableList.of(2)));
+        assertThat(patch.getAddedRows(), is(ImmutableMap.of(2, new BankItem(561, 2), 3, new BankItem(1127, 1))));
+        assertThat(patch.getPatchedDifferences(), is(DIFF_GENERATOR.findDifferencesBetween(BEFORE, newAfter)));
+    }
+
+    @Test
+    public void testCreate_givenItemInDifferencesTwice_cannotPatch() {
+        BankItemList differences = items(new BankItem(995, -60), new BankItem(4151, -1), new BankItem(995, 5));
+
+        assertThat(ItemDiffPatch.create(differences, ImmutableMap.of(4151, 1), BEFORE, AFTER), is(nullValue()));
+    }
+
+    @Test
+    public void testCreate_givenRowMovingToAfterItems_cannotPatch() {
+        // Coins are no longer in the 'before' bank, so a new diff would have them with the 'after' items
+        BankItemList newBefore = items(new BankItem(4151, 1), new BankItem(561, 5), new BankItem(385, 10));
+        Map<Integer, Integer> changes = new LinkedHashMap<>();
+        DIFF_GENERATOR.findDifferencesBetween(BEFORE, newBefore).forEach(i -> changes.put(i.getItemId(), -i.getQuantity()));
+
+        assertThat(ItemDiffPatch.create(DIFFERENCES, changes, newBefore, AFTER), is(nullValue()));
+    }
+
+    @Test
+    public void testCreate_givesSameDifferencesAsWorkingThemOutAgain() {
+        BankItemList newAfter = items(
+                new BankItem(2434, 4), new BankItem(995, 1000), new BankItem(385, 25), new BankItem(1127, 1));
+
+        ItemDiffPatch patch = patchForNewAfter(newAfter);
+
+        assertThat(patch.getPatchedDifferences(), is(DIFF_GENERATOR.findDifferencesBetween(BEFORE, newAfter)));
+    }
+
+    private static ItemDiffPatch patchForNewAfter(BankItemList newAfter) {
+        Map<Integer, Integer> changes = new LinkedHashMap<>();
+        DIFF_GENERATOR.findDifferencesBetween(AFTER, newAfter).forEach(i -> changes.put(i.getItemId(), i.getQuantity()));
+        return ItemDiffPatch.create(DIFF_GENERATOR.findDifferencesBetween(BEFORE, AFTER), changes, BEFORE, newAfter);
+    }
+
+    private static BankItemList items(BankItem... items) {
+        return BankItemList.copyOf(ImmutableList.copyOf(items));
+    }
+}
@@ -0,0 +1,82 @@
+package com.bankmemory;
+
+import com.bankmemory.data.BankItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ItemListDiffGeneratorEquivalenceTest {
+
+    private final ItemListDiffGenerator diffGenerator = new ItemListDiffGenerator();
+
+    @Test
+    public void testFindDifferencesBetween_givenRandomBanks_givesSameResultAsMapBasedDiff() {
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            List<BankItem> before = randomItems(random);
+            List<BankItem> after = random.nextBoolean() ? randomItems(random) : changed(before, random);
+
+            assertThat(before + " -> " + after, diffGenerator.findDifferencesBetween(before, after),
+                    is(findDifferencesWithMaps(before, after)));
+        }
+    }
+
+    private static List<BankItem> randomItems(Random random) {
+        int size = random.nextInt(40);
+        // Small ID range so there are duplicates, and some negative IDs and zero quantities
+        int idRange = 5 + random.nextInt(60);
+        List<BankItem> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            items.add(new BankItem(random.nextInt(idRange) - 3, random.nextInt(20) - 2));
+        }
+        return items;
+    }
+
+    private static List<BankItem> changed(List<BankItem> items, Random random) {
+        List<BankItem> changed = new ArrayList<>();
+        for (BankItem item : items) {
+            int roll = random.nextInt(10);
+            if (roll == 0) {
+                continue;
+            }
+            changed.add(roll == 1 ? new BankItem(item.getItemId(), random.nextInt(100)) : item);
+            if (roll == 2) {
+                changed.add(new BankItem(1000 + random.nextInt(100), random.nextInt(5)));
+            }
+        }
+        if (random.nextInt(4) == 0) {
+            Collections.shuffle(changed, random);
+        }
+        return changed;
+    }
+
+    /**
+     * How differences were found before the sort-merge diff, which it has to give the same results as.
+     */
+    static List<BankItem> findDifferencesWithMaps(List<BankItem> before, List<BankItem> after) {
+        Map<Integer, Integer> beforeItems = new HashMap<>();
+        Map<Integer, Integer> afterItems = new HashMap<>();
+        after.forEach(i -> afterItems.put(i.getItemId(), i.getQuantity()));
+        List<BankItem> results = new ArrayList<>();
+        for (BankItem i : before) {
+            beforeItems.put(i.getItemId(), i.getQuantity());
+            int diff = afterItems.getOrDefault(i.getItemId(), 0) - i.getQuantity();
+            if (diff != 0) {
+                results.add(new BankItem(i.getItemId(), diff));
+            }
+        }
+        for (BankItem i : after) {
+            if (!beforeItems.containsKey(i.getItemId())) {
+                results.add(i);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,92 @@
+package com.bankmemory;
+
+import com.bankmemory.data.BankItem;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ItemTimelineGeneratorTest {
+    private final ItemTimelineGenerator timelineGenerator = new ItemTimelineGenerator();
+
+    @Test
+    public void testCreateTimeline_givenNoBanks_hasNoItems() {
+        ItemTimeline timeline = timelineGenerator.createTimeline(ImmutableList.of());
+
+        assertThat(timeline.getBankCount(), is(0));
+        assertThat(timeline.getItemCount(), is(0));
+    }
+
+    @Test
+    public void testCreateTimeline_givesQuantityOfEachItemInEachBank() {
+        ItemTimeline timeline = timelineGenerator.createTimeline(ImmutableList.of(
+                ImmutableList.of(new BankItem(995, 1000), new BankItem(4151, 1)),
+                ImmutableList.of(),
+                ImmutableList.of(new BankItem(385, 20), new BankItem(995, 500))));
+
+        assertThat(timeline.getBankCount(), is(3));
+        assertThat(timeline.getItemCount(), is(3));
+        assertRow(timeline, 0, 385, 0, 0, 20);
+        assertRow(timeline, 1, 995, 1000, 0, 500);
+        assertRow(timeline, 2, 4151, 1, 0, 0);
+    }
+
+    @Test
+    public void testCreateTimeline_givenItemInBankTwice_addsQuantitiesTogether() {
+        ItemTimeline timeline = timelineGenerator.createTimeline(ImmutableList.of(
+                ImmutableList.of(new BankItem(995, 1000), new BankItem(995, 5)),
+                ImmutableList.of(new BankItem(995, 1))));
+
+        assertThat(timeline.getItemCount(), is(1));
+        assertRow(timeline, 0, 995, 1005, 1);
+    }
+
+    @Test
+    public void testCreateTimeline_givenLotsOfBanks_matchesCountingEachBanksItems() {
+        Random random = new Random(1);
+        List<List<BankItem>> banks = new ArrayList<>();
+        for (int b = 0; b < 30; b++) {
+            List<BankItem> bank = new ArrayList<>();
+            // Some banks with IDs too far apart to be radix sorted
+            int idSpread = b % 3 == 0 ? 1000 : 1;
+            int size = random.nextInt(200);
+            for (int i = 0; i < size; i++) {
+                bank.add(new BankItem(random.nextInt(300) * idSpread, 1 + random.nextInt(1000)));
+            }
+            banks.add(bank);
+        }
+
+        Map<Integer, int[]> expected = new TreeMap<>();
+        for (int b = 0; b < banks.size(); b++) {
+            for (BankItem item : banks.get(b)) {
+                expected.computeIfAbsent(item.getItemId(), id -> new int[banks.size()])[b] += item.getQuantity();
+            }
+        }
+        ItemTimeline timeline = timelineGenerator.createTimeline(banks);
+
+        Map<Integer, int[]> actual = new HashMap<>();
+        for (int row = 0; row < timeline.getItemCount(); row++) {
+            int[] quantities = new int[timeline.getBankCount()];
+            for (int b = 0; b < quantities.length; b++) {
+                quantities[b] = timeline.getQuantity(row, b);
+            }
+            actual.put(timeline.getItemId(row), quantities);
+        }
+        assertThat(timeline.getItemCount(), is(expected.size()));
+        expected.forEach((itemId, quantities) -> assertThat(actual.get(itemId), is(quantities)));
+    }
+
+    private static void assertRow(ItemTimeline timeline, int row, int itemId, int... quantities) {
+        assertThat(timeline.getItemId(row), is(itemId));
+        for (int b = 0; b < quantities.length; b++) {
+            assertThat(timeline.getQuantity(row, b), is(quantities[b]));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.bankmemory.bankview;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.List;
 import javax.swing.event.ListDataListener;
 import com.google.inject.testing.fieldbinder.*;
@@ -15,6 +17,8 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -205,11 +209,124 @@ public class FilterableItemListModelTest {
         verifyNoMoreInteractions(listener1, listener2);
     }
 
+    @Test
+    public void testApplyFilter_givenFilterTypedOutAndBackspaced_givesSameItemsAsFilteringFromScratch() {
+        List<ItemListEntry> items = list(dragonScimitar, runeAxe, runeDagger, magicStaff, airRune,
+                dragonstone, amuletOfGlory, antiDragonShield, petKitten);
+        FilterableItemListModel model = new FilterableItemListModel();
+        model.setListContents(items);
+
+        String[] filters = {"d", "dr", "dra", "drag", "dra", "dr", "d", "", "r", "ru", "run", "ru", "rut", "ru",
+                "Dragon", "an", "a", "", "xyz", "x", ""};
+        for (String filter : filters) {
+            model.applyFilter(filter);
+
+            FilterableItemListModel fromScratch = new FilterableItemListModel();
+            fromScratch.setListContents(items);
+            fromScratch.applyFilter(filter);
+            assertThat(filter, elementsOf(model), is(elementsOf(fromScratch)));
+        }
+    }
+
+    @Test
+    public void testApplyFilter_givenBackspaceAfterContentsChanged_filtersNewContents() {
+        FilterableItemListModel model = new FilterableItemListModel();
+        model.setListContents(list(dragonScimitar, runeAxe, runeDagger, magicStaff, airRune));
+        model.applyFilter("r");
+        model.applyFilter("ru");
+        model.applyFilter("rune");
+
+        model.applyChanges(new ItemListChanges(ImmutableMap.of(), list(1), ImmutableMap.of(4, item("Rune 2h sword"))));
+        model.applyFilter("run");
+
+        assertThat(elementsOf(model), is(list(runeDagger, airRune, model.getRawElementAt(4))));
+
+        model.setListContents(list(dragonstone, petKitten, item("Runite bar")));
+        model.applyFilter("ru");
+
+        assertThat(model.getSize(), is(1));
+        assertThat(model.getElementAt(0).getItemName(), is("Runite bar"));
+    }
+
+    @Test
+    public void testApplyChanges_givenFilterApplied_updatesContentsAndFilteredRows() {
+        FilterableItemListModel model = new FilterableItemListModel();
+        model.setListContents(list(dragonScimitar, runeAxe, runeDagger, magicStaff, airRune));
+        model.applyFilter("rune");
+
+        ItemListEntry moreRuneAxes = new ItemListEntry("Rune axe", 2, runeAxe.getImage(), 2, 2);
+        model.applyChanges(new ItemListChanges(
+                ImmutableMap.of(1, moreRuneAxes), list(0, 2), ImmutableMap.of(3, dragonstone, 4, petKitten, 5, item("Fire rune"))));
+
+        assertThat(model.getRawSize(), is(6));
+        assertThat(model.getRawElementAt(0), is(moreRuneAxes));
+        assertThat(model.getRawElementAt(1), is(magicStaff));
+        assertThat(model.getRawElementAt(2), is(airRune));
+        assertThat(model.getRawElementAt(3), is(dragonstone));
+        assertThat(model.getSize(), is(3));
+        assertThat(model.getElementAt(0), is(moreRuneAxes));
+        assertThat(model.getElementAt(1), is(airRune));
+        assertThat(model.getElementAt(2).getItemName(), is("Fire rune"));
+        assertThat(model.getAdjustedIndex(2), is(1));
+        assertThat(model.getAdjustedIndex(3), is(-1));
+    }
+
+    @Test
+    public void testApplyChanges_notifiesListenersOfOnlyChangedRows() {
+        FilterableItemListModel model = new FilterableItemListModel();
+        model.setListContents(list(dragonScimitar, runeAxe, runeDagger, magicStaff, airRune));
+        model.applyFilter("rune");
+        ListDataListener listener = mock(ListDataListener.class);
+        model.addListDataListener(listener);
+
+        model.applyChanges(new ItemListChanges(
+                ImmutableMap.of(2, runeDagger, 3, magicStaff), list(0, 4), ImmutableMap.of(3, dragonstone, 4, petKitten, 5, airRune)));
+
+        // Dagger changed, first air rune removed, air rune added at the end
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).contentsChanged(argThat(e -> e.getIndex0() == 1 && e.getIndex1() == 1));
+        inOrder.verify(listener).intervalRemoved(argThat(e -> e.getIndex0() == 2 && e.getIndex1() == 2));
+        inOrder.verify(listener).intervalAdded(argThat(e -> e.getIndex0() == 2 && e.getIndex1() == 2));
+        verifyNoMoreInteractions(listener);
+        assertThat(model.getSize(), is(3));
+        assertThat(model.getElementAt(2), is(airRune));
+    }
+
+    @Test
+    public void testApplyChanges_givenEntriesAddedInMiddle_putsThemInAtTheirRows() {
+        FilterableItemListModel model = new FilterableItemListModel();
+        model.setListContents(list(dragonScimitar, runeAxe, magicStaff));
+        model.applyFilter("rune");
+        ListDataListener listener = mock(ListDataListener.class);
+        model.addListDataListener(listener);
+
+        model.applyChanges(new ItemListChanges(ImmutableMap.of(), list(), ImmutableMap.of(3, airRune, 1, runeDagger)));
+
+        assertThat(model.getRawSize(), is(5));
+        assertThat(model.getRawElementAt(1), is(runeDagger));
+        assertThat(model.getRawElementAt(3), is(airRune));
+        assertThat(model.getRawElementAt(4), is(magicStaff));
+        assertThat(elementsOf(model), is(list(runeDagger, runeAxe, airRune)));
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).intervalAdded(argThat(e -> e.getIndex0() == 0 && e.getIndex1() == 0));
+        inOrder.verify(listener).intervalAdded(argThat(e -> e.getIndex0() == 2 && e.getIndex1() == 2));
+        verifyNoMoreInteractions(listener);
+    }
+
     private static ItemListEntry item(String name) {
         return new ItemListEntry(name, 1, new AsyncBufferedImage(clientThread, 1, 1, BufferedImage.TYPE_INT_ARGB), 1, 1);
     }
 
-    private static List<ItemListEntry> list(ItemListEntry... items) {
+    private static List<ItemListEntry> elementsOf(FilterableItemListModel model) {
+        List<ItemListEntry> elements = new ArrayList<>();
+        for (int i = 0; i < model.getSize(); i++) {
+            elements.add(model.getElementAt(i));
+        }
+        return elements;
+    }
+
+    @SafeVarargs
+    private static <T> List<T> list(T... items) {
         return Lists.newArrayList(items);
     }
 }
\ No newline at end of file
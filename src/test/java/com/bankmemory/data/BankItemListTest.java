@@ -0,0 +1,106 @@
+package com.bankmemory.data;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BankItemListTest {
+
+    private static final ImmutableList<BankItem> ITEMS = ImmutableList.of(
+            new BankItem(995, 1000), new BankItem(4151, 1), new BankItem(385, -20));
+
+    @Test
+    public void testCopyOf_givenItems_hasItemsInOrder() {
+        BankItemList list = BankItemList.copyOf(ITEMS);
+
+        assertThat(list.size(), is(3));
+        assertThat(list.getItemId(1), is(4151));
+        assertThat(list.getQuantity(2), is(-20));
+        assertThat(list.get(0), is(new BankItem(995, 1000)));
+        assertThat(new ArrayList<>(list), is(ITEMS));
+    }
+
+    @Test
+    public void testCopyOf_givenBankItemList_returnsSameList() {
+        BankItemList list = BankItemList.copyOf(ITEMS);
+
+        assertThat(BankItemList.copyOf(list), sameInstance(list));
+    }
+
+    @Test
+    public void testEqualsAndHashCode_matchOtherLists() {
+        BankItemList list = BankItemList.copyOf(ITEMS);
+
+        assertThat(list.equals(ITEMS), is(true));
+        assertThat(ITEMS.equals(list), is(true));
+        assertThat(list.equals(BankItemList.copyOf(new ArrayList<>(ITEMS))), is(true));
+        assertThat(list.equals(BankItemList.copyOf(ITEMS.subList(0, 2))), is(false));
+        assertThat(list.hashCode(), is(ITEMS.hashCode()));
+        assertThat(BankItemList.of().hashCode(), is(ImmutableList.of().hashCode()));
+    }
+
+    @Test
+    public void testBuilder_givenMoreItemsThanExpected_keepsAllItems() {
+        BankItemList.Builder builder = BankItemList.builderWithExpectedSize(1);
+        List<BankItem> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            builder.add(i, i * 2);
+            expected.add(new BankItem(i, i * 2));
+        }
+
+        assertThat(builder.build(), is(expected));
+    }
+
+    @Test
+    public void testBuilder_givenNoItems_buildsEmptyList() {
+        assertThat(BankItemList.builderWithExpectedSize(10).build(), sameInstance(BankItemList.of()));
+    }
+
+    @Test
+    public void testIndexOfItemId_givenItemIds_findsItems() {
+        BankItemList list = BankItemList.copyOf(ITEMS);
+
+        assertThat(list.indexOfItemId(995), is(0));
+        assertThat(list.indexOfItemId(385), is(2));
+        assertThat(list.indexOfItemId(4152), is(-1));
+        assertThat(BankItemList.of().indexOfItemId(995), is(-1));
+    }
+
+    @Test
+    public void testIndexOfItemId_givenDuplicateIds_findsFirst() {
+        BankItemList list = BankItemList.copyOf(ImmutableList.of(
+                new BankItem(-1, 5), new BankItem(995, 1), new BankItem(-1, 6), new BankItem(995, 2)));
+
+        assertThat(list.indexOfItemId(-1), is(0));
+        assertThat(list.indexOfItemId(995), is(1));
+    }
+
+    @Test
+    public void testIndexOfItemId_givenLotsOfItems_findsEveryItem() {
+        BankItemList.Builder builder = BankItemList.builderWithExpectedSize(1000);
+        for (int i = 0; i < 1000; i++) {
+            builder.add(i * 7 - 300, i);
+        }
+        BankItemList list = builder.build();
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(list.indexOfItemId(i * 7 - 300), is(i));
+            assertThat(list.indexOfItemId(i * 7 - 299), is(-1));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAdd_throws() {
+        BankItemList.copyOf(ITEMS).add(new BankItem(1, 1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetItemId_givenIndexOutOfRange_throws() {
+        BankItemList.copyOf(ITEMS).getItemId(3);
+    }
+}
@@ -0,0 +1,238 @@
+package com.bankmemory.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BankJournalTest {
+
+    private static final String ACCOUNT = "DEFAULT_acc";
+    private static final ImmutableList<BankItem> BANK_1 = ImmutableList.of(new BankItem(995, 100), new BankItem(4151, 1));
+    private static final ImmutableList<BankItem> BANK_2 = ImmutableList.of(new BankItem(995, 50), new BankItem(4151, 1));
+    private static final ImmutableList<BankItem> BANK_3 = ImmutableList.of(new BankItem(995, 50));
+
+    @Mock private ConfigReaderWriter configReaderWriter;
+
+    @Captor private ArgumentCaptor<BankJournalSegment> segmentCaptor;
+    @Captor private ArgumentCaptor<List<Long>> indexCaptor;
+
+    private long time = 1_000_000;
+    private boolean enabled = true;
+    private BankJournal journal;
+
+    @Before
+    public void before() {
+        when(configReaderWriter.readJournalIndex(anyString())).thenReturn(List.of());
+        journal = new BankJournal(configReaderWriter, () -> enabled, MoreExecutors.newDirectExecutorService(), () -> time);
+    }
+
+    @Test
+    public void testRecordCurrentBank_givenFirstBankForAccount_writesCheckpoint() {
+        record(BANK_1);
+
+        verify(configReaderWriter).writeJournalSegment(eq(ACCOUNT), segmentCaptor.capture());
+        verify(configReaderWriter).writeJournalIndex(ACCOUNT, List.of(time));
+        assertThat(segmentCaptor.getValue().getCheckpointTime(), is(time));
+        assertThat(BankJournal.replay(segmentCaptor.getValue(), 0), is(BANK_1));
+    }
+
+    @Test
+    public void testRecordCurrentBank_givenChangesFarApart_recordsEachChange() {
+        record(BANK_1);
+        time += BankJournal.MERGE_WINDOW_MILLIS;
+        record(BANK_2);
+        record(BANK_2);
+        time += BankJournal.MERGE_WINDOW_MILLIS;
+        record(BANK_3);
+
+        BankJournalSegment segment = lastWrittenSegment();
+        assertThat(segment.getChanges().size(), is(2));
+        assertThat(BankJournal.replay(segment, 1), is(BANK_2));
+        assertThat(BankJournal.replay(segment, 2), is(BANK_3));
+        assertThat(segment.getChanges().get(1).getTime(), is(time));
+    }
+
+    @Test
+    public void testRecordCurrentBank_givenChangesCloseTogether_mergesThem() {
+        record(BANK_1);
+        time += BankJournal.MERGE_WINDOW_MILLIS;
+        record(BANK_2);
+        time += 1000;
+        record(BANK_3);
+
+        BankJournalSegment segment = lastWrittenSegment();
+        assertThat(segment.getChanges().size(), is(1));
+        assertThat(BankJournal.replay(segment, 1), is(BANK_3));
+
+        time += 1000;
+        record(BANK_1);
+        assertThat(lastWrittenSegment().getChanges().size(), is(0));
+    }
+
+    @Test
+    public void testRecordCurrentBank_givenCloseChangesGoingOnLongerThanMergeWindow_startsNewChange() {
+        record(BANK_1);
+        time += BankJournal.MERGE_WINDOW_MILLIS;
+        record(BANK_2);
+        time += BankJournal.MERGE_WINDOW_MILLIS / 2;
+        record(BANK_3);
+        time += BankJournal.MERGE_WINDOW_MILLIS / 2;
+        record(BANK_1);
+
+        BankJournalSegment segment = lastWrittenSegment();
+        assertThat(segment.getChanges().size(), is(2));
+        assertThat(BankJournal.replay(segment, 1), is(BANK_3));
+        assertThat(BankJournal.replay(segment, 2), is(BANK_1));
+    }
+
+    @Test
+    public void testRecordCurrentBank_givenManyChanges_startsNewSegmentWithCheckpoint() {
+        record(BANK_1);
+        for (int i = 0; i < BankJournal.MAX_CHANGES_PER_CHECKPOINT; i++) {
+            time += BankJournal.MERGE_WINDOW_MILLIS;
+            record(i % 2 == 0 ? BANK_2 : BANK_1);
+        }
+        time += BankJournal.MERGE_WINDOW_MILLIS;
+        record(BANK_3);
+
+        verify(configReaderWriter, times(2)).writeJournalIndex(eq(ACCOUNT), indexCaptor.capture());
+        assertThat(indexCaptor.getValue().size(), is(2));
+        BankJournalSegment segment = lastWrittenSegment();
+        assertThat(segment.getCheckpointTime(), is(time));
+        assertThat(segment.getChanges().isEmpty(), is(true));
+        assertThat(BankJournal.replay(segment, 0), is(BANK_3));
+    }
+
+    @Test
+    public void testRecordCurrentBank_givenTooManySegments_deletesOldestSegments() {
+        long firstSegmentStart = time;
+        record(BANK_1);
+        // Each segment is a checkpoint and then its changes, so this is one segment too many
+        for (int i = 0; i < (BankJournal.MAX_CHANGES_PER_CHECKPOINT + 1) * BankJournal.MAX_SEGMENTS_PER_ACCOUNT; i++) {
+            time += BankJournal.MERGE_WINDOW_MILLIS;
+            record(i % 2 == 0 ? BANK_2 : BANK_1);
+        }
+        time += BankJournal.MERGE_WINDOW_MILLIS;
+        record(BANK_3);
+
+        verify(configReaderWriter).deleteJournalSegment(ACCOUNT, firstSegmentStart);
+        verify(configReaderWriter, atLeastOnce()).writeJournalIndex(eq(ACCOUNT), indexCaptor.capture());
+        List<Long> index = indexCaptor.getValue();
+        assertThat(index.size(), is(BankJournal.MAX_SEGMENTS_PER_ACCOUNT));
+        assertThat(index.contains(firstSegmentStart), is(false));
+        assertThat(journal.findBankAt(BankWorldType.DEFAULT, "acc", firstSegmentStart).isPresent(), is(false));
+        assertThat(findBankAt(time).getItemData(), is(BANK_3));
+    }
+
+    @Test
+    public void testRecordCurrentBank_givenJournalTurnedOff_recordsNothing() {
+        enabled = false;
+        record(BANK_1);
+
+        verify(configReaderWriter, never()).writeJournalSegment(anyString(), any());
+        verify(configReaderWriter, never()).writeJournalIndex(anyString(), any());
+    }
+
+    @Test
+    public void testRecordCurrentBank_givenStoredJournal_carriesOnFromLastSegment() {
+        BankJournalSegment stored = new BankJournalSegment(5, new ItemDataParser().toSaveString(BANK_1), List.of(
+                new BankJournalSegment.Change(10, ItemDataDelta.create(BANK_1, "", BANK_2))));
+        when(configReaderWriter.readJournalIndex(ACCOUNT)).thenReturn(List.of(5L));
+        when(configReaderWriter.readJournalSegment(ACCOUNT, 5)).thenReturn(stored);
+
+        record(BANK_2);
+        verify(configReaderWriter, times(0)).writeJournalSegment(anyString(), segmentCaptor.capture());
+
+        record(BANK_3);
+        BankJournalSegment segment = lastWrittenSegment();
+        assertThat(segment.getCheckpointTime(), is(5L));
+        assertThat(segment.getChanges().size(), is(2));
+        assertThat(BankJournal.replay(segment, 2), is(BANK_3));
+    }
+
+    @Test
+    public void testFindBankAt_replaysJournalUpToTime() {
+        long start = time;
+        record(BANK_1);
+        for (int i = 0; i < BankJournal.MAX_CHANGES_PER_CHECKPOINT + 10; i++) {
+            time += BankJournal.MERGE_WINDOW_MILLIS;
+            record(i % 2 == 0 ? BANK_2 : BANK_3);
+        }
+
+        assertThat(journal.findBankAt(BankWorldType.DEFAULT, "acc", start - 1).isPresent(), is(false));
+        assertThat(findBankAt(start).getItemData(), is(BANK_1));
+        assertThat(findBankAt(start + BankJournal.MERGE_WINDOW_MILLIS - 1).getItemData(), is(BANK_1));
+        BankSave firstChange = findBankAt(start + BankJournal.MERGE_WINDOW_MILLIS);
+        assertThat(firstChange.getItemData(), is(BANK_2));
+        assertThat(firstChange.getTimestamp(), is(start + BankJournal.MERGE_WINDOW_MILLIS));
+        assertThat(findBankAt(start + BankJournal.MERGE_WINDOW_MILLIS * 2 + 5).getItemData(), is(BANK_3));
+        // In the second segment of the journal
+        assertThat(findBankAt(time - BankJournal.MERGE_WINDOW_MILLIS).getItemData(), is(BANK_2));
+        assertThat(findBankAt(time + 100_000).getItemData(), is(BANK_3));
+    }
+
+    @Test
+    public void testFindBankAt_givenOlderSegmentStored_readsIt() {
+        BankJournalSegment stored = new BankJournalSegment(5, new ItemDataParser().toSaveString(BANK_1), List.of(
+                new BankJournalSegment.Change(10, ItemDataDelta.create(BANK_1, "", BANK_2))));
+        when(configReaderWriter.readJournalIndex(ACCOUNT)).thenReturn(List.of(5L, 20L));
+        when(configReaderWriter.readJournalSegment(ACCOUNT, 20)).thenReturn(
+                new BankJournalSegment(20, new ItemDataParser().toSaveString(BANK_3), List.of()));
+        when(configReaderWriter.readJournalSegment(ACCOUNT, 5)).thenReturn(stored);
+
+        assertThat(findBankAt(12).getItemData(), is(BANK_2));
+        assertThat(findBankAt(25).getItemData(), is(BANK_3));
+    }
+
+    @Test
+    public void testFindBankAt_givenJournalThreadStuck_givesUpAfterTimeout() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch stuck = new CountDownLatch(1);
+        executor.execute(() -> Uninterruptibles.awaitUninterruptibly(stuck));
+        journal = new BankJournal(configReaderWriter, () -> enabled, executor, () -> time);
+
+        try {
+            assertThat(journal.findBankAt(BankWorldType.DEFAULT, "acc", time), is(Optional.empty()));
+        } finally {
+            stuck.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private BankSave findBankAt(long time) {
+        return journal.findBankAt(BankWorldType.DEFAULT, "acc", time).orElseThrow();
+    }
+
+    private void record(ImmutableList<BankItem> items) {
+        journal.recordCurrentBank(new BankSave(BankWorldType.DEFAULT, "Acc", null, "Monday", items));
+    }
+
+    private BankJournalSegment lastWrittenSegment() {
+        verify(configReaderWriter, atLeastOnce()).writeJournalSegment(eq(ACCOUNT), segmentCaptor.capture());
+        return segmentCaptor.getValue();
+    }
+}
@@ -0,0 +1,62 @@
+package com.bankmemory.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BankSaveTypeAdapterTest {
+
+    private static final Map<String, String> STORED_ITEM_DATA = Map.of("adapterHash2", "b1:AdoEAg");
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(BankSave.class, new BankSaveTypeAdapter(new ItemDataParser(STORED_ITEM_DATA::get)))
+            .create();
+
+    @Test
+    public void testRead_givenLegacyUserName_readsItAsAccountIdentifier() {
+        String json = "{\"id\":5,\"worldType\":\"LEAGUE\",\"dateTimeString\":\"Monday\",\"userName\":\"Bob\","
+                + "\"saveName\":\"Snap\",\"itemData\":\"995,100,4151,1\"}";
+
+        BankSave save = gson.fromJson(json, BankSave.class);
+
+        assertThat(save.getId(), is(5L));
+        assertThat(save.getWorldType(), is(BankWorldType.LEAGUE));
+        assertThat(save.getDateTimeString(), is("Monday"));
+        assertThat(save.getAccountIdentifier(), is("Bob"));
+        assertThat(save.getSaveName(), is("Snap"));
+        assertThat(save.getItemData(), is(ImmutableList.of(new BankItem(995, 100), new BankItem(4151, 1))));
+    }
+
+    @Test
+    public void testRead_givenUnknownFieldsAndNulls_ignoresThem() {
+        String json = "{\"id\":5,\"futureField\":{\"a\":[1,2]},\"worldType\":null,\"saveName\":null,"
+                + "\"accountIdentifier\":\"acc\",\"itemData\":\"h:adapterHash2\"}";
+
+        BankSave save = gson.fromJson(json, BankSave.class);
+
+        assertThat(save.getWorldType(), nullValue());
+        assertThat(save.getSaveName(), nullValue());
+        assertThat(save.getItemData(), is(ImmutableList.of(new BankItem(301, 1))));
+    }
+
+    @Test
+    public void testWriteThenRead_givenListOfSaves_keepsEverything() {
+        BankSave current = BankSave.fromHistory(BankWorldType.DEADMAN, "acc", 1234L, ImmutableList.of(new BankItem(1, 2)));
+        BankSave snapshot = BankSave.snapshotFromExistingBank("Snap \"1\"", current);
+
+        String json = gson.toJson(List.of(current, snapshot));
+        List<BankSave> read = gson.fromJson(json, new TypeToken<List<BankSave>>() {}.getType());
+
+        assertThat(json.contains("\"itemData\":\"h:" + current.getLazyItemData().getContentHash() + "\""), is(true));
+        assertThat(read, is(List.of(current, snapshot)));
+        assertThat(read.get(1).getTimestamp(), is(1234L));
+    }
+}
@@ -0,0 +1,314 @@
+package com.bankmemory.data;
+
+import com.google.common.collect.ImmutableList;
+import com.bankmemory.BankMemoryConfig;
+import com.google.gson.Gson;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.api.ItemID;
+import net.runelite.client.config.ConfigManager;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigReaderWriterTest {
+
+    private static final String GROUP = "bankMemory";
+    private static final String SAVE_1_JSON = "{\"id\":1,\"worldType\":\"DEFAULT\",\"dateTimeString\":\"Monday\","
+            + "\"accountIdentifier\":\"acc\",\"itemData\":\"995,100,\"}";
+    private static final String SAVE_2_JSON = "{\"id\":2,\"worldType\":\"DEFAULT\",\"dateTimeString\":\"Tuesday\","
+            + "\"accountIdentifier\":\"other\",\"itemData\":\"995,5,\"}";
+
+    private static final String CURRENT_DATA_VERSION = "2";
+
+    @Mock @Bind private ConfigManager configManager;
+    @Mock @Bind private BankMemoryConfig config;
+    @Bind private final Gson gson = new Gson();
+
+    @Test
+    public void testReadCurrentBanks_givenOnlyLegacyListStored_movesSavesToTheirOwnKeys() {
+        when(configManager.getConfiguration(GROUP, "currentList")).thenReturn("[" + SAVE_1_JSON + "," + SAVE_2_JSON + "]");
+        ConfigReaderWriter readerWriter = new ConfigReaderWriter(new Gson(), configManager);
+
+        List<BankSave> saves = readerWriter.readCurrentBanks();
+        readerWriter.flushWrites();
+
+        assertThat(saves.size(), is(2));
+        assertThat(saves.get(0).getId(), is(1L));
+        assertThat(saves.get(0).getItemData(), is(ImmutableList.of(new BankItem(995, 100))));
+        assertThat(saves.get(1).getId(), is(2L));
+        verify(configManager).setConfiguration(eq(GROUP), eq("save_1"), anyString());
+        verify(configManager).setConfiguration(eq(GROUP), eq("save_2"), anyString());
+        verify(configManager, times(2)).setConfiguration(eq(GROUP), startsWith("items_"), anyString());
+        verify(configManager).setConfiguration(GROUP, "currentIndex", "[1,2]");
+        verify(configManager).unsetConfiguration(GROUP, "currentList");
+    }
+
+    @Test
+    public void testReadCurrentBanks_givenSavesStoredUnderOwnKeys_readsSavesInIndexOrder() {
+        when(configManager.getConfiguration(GROUP, "dataVersion")).thenReturn(CURRENT_DATA_VERSION);
+        when(configManager.getConfiguration(GROUP, "currentIndex")).thenReturn("[2,1]");
+        when(configManager.getConfiguration(GROUP, "save_1")).thenReturn(saveJson(1, "hash1a"));
+        when(configManager.getConfiguration(GROUP, "save_2")).thenReturn(saveJson(2, "hash1b"));
+        ConfigReaderWriter readerWriter = new ConfigReaderWriter(new Gson(), configManager);
+
+        List<BankSave> saves = readerWriter.readCurrentBanks();
+        readerWriter.flushWrites();
+
+        assertThat(saves.size(), is(2));
+        assertThat(saves.get(0).getId(), is(2L));
+        assertThat(saves.get(1).getId(), is(1L));
+        verify(configManager, never()).setConfiguration(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testReadCurrentBanks_doesNotLoadItemDataUntilItIsNeeded() {
+        when(configManager.getConfiguration(GROUP, "dataVersion")).thenReturn(CURRENT_DATA_VERSION);
+        when(configManager.getConfiguration(GROUP, "currentIndex")).thenReturn("[1]");
+        when(configManager.getConfiguration(GROUP, "save_1")).thenReturn(saveJson(1, "hash2a"));
+        when(configManager.getConfiguration(GROUP, "items_hash2a")).thenReturn("\"995,100,\"");
+        ConfigReaderWriter readerWriter = new ConfigReaderWriter(new Gson(), configManager);
+
+        List<BankSave> saves = readerWriter.readCurrentBanks();
+
+        assertThat(saves.size(), is(1));
+        assertThat(saves.get(0).getDateTimeString(), is("Monday"));
+        verify(configManager, never()).getConfiguration(GROUP, "items_hash2a");
+
+        assertThat(saves.get(0).getItemData(), is(ImmutableList.of(new BankItem(995, 100))));
+        verify(configManager).getConfiguration(GROUP, "items_hash2a");
+    }
+
+    @Test
+    public void testReadCurrentBanks_givenSavesWithSameItemData_holdsItemDataOnce() {
+        when(configManager.getConfiguration(GROUP, "currentIndex")).thenReturn("[1,2]");
+        when(configManager.getConfiguration(GROUP, "save_1")).thenReturn(saveJson(1, "hash3a"));
+        when(configManager.getConfiguration(GROUP, "save_2")).thenReturn(saveJson(2, "hash3a"));
+        when(configManager.getConfiguration(GROUP, "items_hash3a")).thenReturn("\"995,100,\"");
+        ConfigReaderWriter readerWriter = new ConfigReaderWriter(new Gson(), configManager);
+
+        List<BankSave> saves = readerWriter.readCurrentBanks();
+
+        assertThat(saves.get(0).getItemData(), sameInstance(saves.get(1).getItemData()));
+        verify(configManager).getConfiguration(GROUP, "items_hash3a");
+    }
+
+    @Test
+    public void testWriteCurrentBanks_onlyWritesSavesThatChanged() {
+        when(configManager.getConfiguration(GROUP, "currentIndex")).thenReturn("[1,2]");
+        when(configManager.getConfiguration(GROUP, "save_1")).thenReturn(saveJson(1, "hash4a"));
+        when(configManager.getConfiguration(GROUP, "save_2")).thenReturn(saveJson(2, "hash4b"));
+        ConfigReaderWriter readerWriter = new ConfigReaderWriter(new Gson(), configManager);
+        List<BankSave> saves = readerWriter.readCurrentBanks();
+        BankSave newSave = new BankSave(BankWorldType.DEFAULT, "other", null, "Wednesday", ImmutableList.of());
+
+        readerWriter.writeCurrentBanks(List.of(newSave, saves.get(0)));
+        readerWriter.flushWrites();
+
+        verify(configManager).setConfiguration(eq(GROUP), eq("save_" + newSave.getId()), anyString());
+        verify(configManager).setConfiguration(eq(GROUP), startsWith("items_"), anyString());
+        verify(configManager, never()).setConfiguration(eq(GROUP), eq("save_1"), anyString());
+        verify(configManager).unsetConfiguration(GROUP, "save_2");
+        verify(configManager).unsetConfiguration(GROUP, "items_hash4b");
+        verify(configManager).setConfiguration(GROUP, "currentIndex", "[" + newSave.getId() + ",1]");
+    }
+
+    @Test
+    public void testWriteCurrentBanks_givenNewSavesWithSameItemData_writesItemDataOnce() {
+        ConfigReaderWriter readerWriter = new ConfigReaderWriter(new Gson(), configManager);
+        ImmutableList<BankItem> items = ImmutableList.of(new BankItem(4151, 1));
+        BankSave save1 = new BankSave(BankWorldType.DEFAULT, "acc", null, "Monday", items);
+        BankSave save2 = new BankSave(BankWorldType.DEFAULT, "other", null, "Tuesday", ImmutableList.copyOf(items));
+
+        readerWriter.writeCurrentBanks(List.of(save1, save2));
+        readerWriter.flushWrites();
+
+        verify(configManager, times(1)).setConfiguration(eq(GROUP), startsWith("items_"), anyString());
+        assertThat(save1.getItemData(), sameInstance(save2.getItemData()));
+    }
+
+    @Test
+    public void testWriteBankSnapshots_givenSnapshotsOfSameAccount_storesNewerItemDataAsDelta() {
+        Map<String, String> stored = new HashMap<>();
+        doAnswer(inv -> stored.put(inv.getArgument(1), inv.getArgument(2)))
+                .when(configManager).setConfiguration(eq(GROUP), anyString(), anyString());
+        when(configManager.getConfiguration(eq(GROUP), anyString())).thenAnswer(inv -> stored.get(inv.getArgument(1)));
+        ConfigReaderWriter readerWriter = new ConfigReaderWriter(new Gson(), configManager);
+        ImmutableList<BankItem> olderItems = ImmutableList.of(new BankItem(995, 800), new BankItem(4151, 1));
+        ImmutableList<BankItem> newerItems = ImmutableList.of(
+                new BankItem(995, 950), new BankItem(4151, 1), new BankItem(11802, 1));
+        BankSave older = new BankSave(BankWorldType.DEFAULT, "acc", "Old", "Monday", olderItems);
+        BankSave newer = new BankSave(BankWorldType.DEFAULT, "Acc", "New", "Tuesday", newerItems);
+
+        readerWriter.writeBankSnapshots(List.of(newer, older));
+        readerWriter.flushWrites();
+
+        String newerItemData = stored.get("items_" + newer.getLazyItemData().getContentHash());
+        String olderItemData = stored.get("items_" + older.getLazyItemData().getContentHash());
+        assertThat(newerItemData.startsWith("\"d1:" + older.getLazyItemData().getContentHash()), is(true));
+        assertThat(olderItemData.startsWith("\"b1:"), is(true));
+
+        verify(configManager).setConfiguration(GROUP, "itemDataBases", "{\"" + newer.getLazyItemData().getContentHash()
+                + "\":\"" + older.getLazyItemData().getContentHash() + "\"}");
+    }
+
+    @Test
+    public void testWriteBankSnapshots_givenDeltaBaseSaveDeleted_keepsBaseItemDataUntilDeltaIsDeleted() {
+        ConfigReaderWriter readerWriter = new ConfigReaderWriter(new Gson(), configManager);
+        BankSave older = new BankSave(BankWorldType.DEFAULT, "acc", "Old", "Monday",
+                ImmutableList.of(new BankItem(995, 1), new BankItem(4151, 1)));
+        BankSave newer = new BankSave(BankWorldType.DEFAULT, "acc", "New", "Tuesday",
+                ImmutableList.of(new BankItem(995, 2), new BankItem(4151, 1)));
+        String olderKey = "items_" + older.getLazyItemData().getContentHash();
+        String newerKey = "items_" + newer.getLazyItemData().getContentHash();
+        readerWriter.writeBankSnapshots(List.of(newer, older));
+        readerWriter.flushWrites();
+
+        readerWriter.writeBankSnapshots(List.of(newer));
+        readerWriter.flushWrites();
+        verify(configManager).unsetConfiguration(GROUP, "save_" + older.getId());
+        verify(configManager, never()).unsetConfiguration(GROUP, olderKey);
+
+        readerWriter.writeBankSnapshots(List.of());
+        readerWriter.flushWrites();
+        verify(configManager).unsetConfiguration(GROUP, newerKey);
+        verify(configManager).unsetConfiguration(GROUP, olderKey);
+        verify(configManager).setConfiguration(GROUP, "itemDataBases", "{}");
+    }
+
+    @Test
+    public void testReadBanks_givenOldDataVersion_upgradesSavesOnceAndWritesThemBack() {
+        when(configManager.getConfiguration(GROUP, "currentIndex")).thenReturn("[1,2]");
+        when(configManager.getConfiguration(GROUP, "save_1")).thenReturn(
+                "{\"id\":1,\"dateTimeString\":\"Monday\",\"accountIdentifier\":\"acc\",\"itemData\":\"h:hash5a\"}");
+        when(configManager.getConfiguration(GROUP, "items_hash5a")).thenReturn("\"995,100,-1,0," + ItemID.BANK_FILLER + ",1\"");
+        when(configManager.getConfiguration(GROUP, "save_2")).thenReturn(saveJson(2, "hash5b"));
+        when(configManager.getConfiguration(GROUP, "items_hash5b")).thenReturn("\"4151,1\"");
+        ConfigReaderWriter readerWriter = new ConfigReaderWriter(new Gson(), configManager);
+
+        List<BankSave> saves = readerWriter.readCurrentBanks();
+        readerWriter.flushWrites();
+
+        assertThat(saves.get(0).getId(), is(1L));
+        assertThat(saves.get(0).getWorldType(), is(BankWorldType.DEFAULT));
+        assertThat(saves.get(0).getItemData(), is(ImmutableList.of(new BankItem(995, 100))));
+        verify(configManager).setConfiguration(eq(GROUP), eq("save_1"), anyString());
+        verify(configManager).setConfiguration(eq(GROUP), eq("items_" + saves.get(0).getLazyItemData().getContentHash()), anyString());
+        verify(configManager).unsetConfiguration(GROUP, "items_hash5a");
+        verify(configManager, never()).setConfiguration(eq(GROUP), eq("save_2"), anyString());
+        verify(configManager, never()).setConfiguration(eq(GROUP), eq("dataVersion"), anyString());
+
+        readerWriter.readBankSnapshots();
+        readerWriter.flushWrites();
+
+        verify(configManager).setConfiguration(GROUP, "dataVersion", CURRENT_DATA_VERSION);
+    }
+
+    @Test
+    public void testReadCurrentBanks_givenUnknownWorldTypeAfterUpgrade_readsDefaultWorldType() {
+        when(configManager.getConfiguration(GROUP, "dataVersion")).thenReturn(CURRENT_DATA_VERSION);
+        when(configManager.getConfiguration(GROUP, "currentIndex")).thenReturn("[1]");
+        when(configManager.getConfiguration(GROUP, "save_1")).thenReturn(
+                saveJson(1, "hash6a").replace("\"DEFAULT\"", "\"SOME_NEW_WORLD\""));
+        ConfigReaderWriter readerWriter = new ConfigReaderWriter(new Gson(), configManager);
+
+        List<BankSave> saves = readerWriter.readCurrentBanks();
+        readerWriter.flushWrites();
+
+        assertThat(saves.get(0).getWorldType(), is(BankWorldType.DEFAULT));
+        verify(configManager, never()).setConfiguration(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testInjection_dataStoreAndJournalShareOneReaderWriter_soFlushingWritesJournalToo() {
+        when(config.keepBankHistory()).thenReturn(true);
+        Injector injector = Guice.createInjector(BoundFieldModule.of(this));
+        PluginDataStore dataStore = injector.getInstance(PluginDataStore.class);
+
+        dataStore.saveAsCurrentBank(new BankSave(BankWorldType.DEFAULT, "acc", null, "Monday", ImmutableList.of()));
+        dataStore.flushPendingWrites();
+
+        assertThat(injector.getInstance(ConfigReaderWriter.class),
+                sameInstance(injector.getInstance(ConfigReaderWriter.class)));
+        verify(configManager).setConfiguration(eq(GROUP), eq("currentIndex"), anyString());
+        verify(configManager).setConfiguration(eq(GROUP), startsWith("journal_"), anyString());
+        verify(configManager).setConfiguration(eq(GROUP), startsWith("journalIndex_"), anyString());
+    }
+
+    @Test
+    public void testMoveDataIfUnused_givenNewStorageEmpty_movesAllData() {
+        StorageBackend from = new MapStorageBackend();
+        StorageBackend to = new MapStorageBackend();
+        from.set("currentIndex", "[1]");
+        from.set("save_1", "{}");
+
+        ConfigReaderWriter.moveDataIfUnused(from, to);
+
+        assertThat(to.get("currentIndex"), is("[1]"));
+        assertThat(to.get("save_1"), is("{}"));
+        assertThat(from.getKeys().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testMoveDataIfUnused_givenNewStorageAlreadyUsed_movesNothing() {
+        StorageBackend from = new MapStorageBackend();
+        StorageBackend to = new MapStorageBackend();
+        from.set("currentIndex", "[1]");
+        to.set("currentIndex", "[2]");
+
+        ConfigReaderWriter.moveDataIfUnused(from, to);
+
+        assertThat(to.get("currentIndex"), is("[2]"));
+        assertThat(from.get("currentIndex"), is("[1]"));
+    }
+
+    private static String saveJson(long id, String itemDataHash) {
+        return "{\"id\":" + id + ",\"worldType\":\"DEFAULT\",\"dateTimeString\":\"Monday\","
+                + "\"accountIdentifier\":\"acc\",\"itemData\":\"h:" + itemDataHash + "\"}";
+    }
+
+    private static class MapStorageBackend implements StorageBackend {
+        private final Map<String, String> data = new HashMap<>();
+
+        @Override
+        public String get(String key) {
+            return data.get(key);
+        }
+
+        @Override
+        public void set(String key, String value) {
+            data.put(key, value);
+        }
+
+        @Override
+        public void unset(String key) {
+            data.remove(key);
+        }
+
+        @Override
+        public List<String> getKeys() {
+            return new ArrayList<>(data.keySet());
+        }
+    }
+}
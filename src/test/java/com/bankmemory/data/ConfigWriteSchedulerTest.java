@@ -0,0 +1,74 @@
+package com.bankmemory.data;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.Test;
+
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConfigWriteSchedulerTest {
+
+    private final List<String> performedWrites = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testSchedule_givenManyWritesToSameKeyWithinDebounceWindow_onlyWritesLatestData() {
+        ConfigWriteScheduler scheduler = new ConfigWriteScheduler(60_000, this::recordWrite);
+
+        scheduler.schedule("group", "key", "first");
+        scheduler.schedule("group", "key", "second");
+        scheduler.schedule("group", "key", "third");
+
+        assertThat(scheduler.flush(5_000), is(true));
+        assertThat(performedWrites, is(List.of("group.key=third")));
+        assertThat(scheduler.getWritesReceived(), is(3L));
+        assertThat(scheduler.getWritesPerformed(), is(1L));
+    }
+
+    @Test
+    public void testSchedule_givenWritesToDifferentKeys_writesLatestDataForEachKey() {
+        ConfigWriteScheduler scheduler = new ConfigWriteScheduler(60_000, this::recordWrite);
+
+        scheduler.schedule("group", "key1", "a");
+        scheduler.schedule("group", "key2", "b");
+        scheduler.schedule("group", "key1", "c");
+
+        assertThat(scheduler.flush(5_000), is(true));
+        assertThat(performedWrites, is(List.of("group.key1=c", "group.key2=b")));
+        assertThat(scheduler.getWritesReceived(), is(3L));
+        assertThat(scheduler.getWritesPerformed(), is(2L));
+    }
+
+    @Test
+    public void testSchedule_givenNoFlush_writesOnceDebounceWindowPasses() throws Exception {
+        ConfigWriteScheduler scheduler = new ConfigWriteScheduler(10, this::recordWrite);
+
+        scheduler.schedule("group", "key", "data");
+
+        long giveUpAt = System.currentTimeMillis() + 5_000;
+        while (performedWrites.isEmpty() && System.currentTimeMillis() < giveUpAt) {
+            Thread.sleep(5);
+        }
+        assertThat(performedWrites, is(List.of("group.key=data")));
+    }
+
+    @Test
+    public void testFlush_givenWriteThatDoesNotFinishInTime_returnsFalse() {
+        ConfigWriteScheduler scheduler = new ConfigWriteScheduler(0, (group, key, data) -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                // Whatever
+            }
+        });
+
+        scheduler.schedule("group", "key", "data");
+
+        assertThat(scheduler.flush(50), is(false));
+    }
+
+    private void recordWrite(String configGroup, String configKey, Object data) {
+        performedWrites.add(configGroup + "." + configKey + "=" + data);
+    }
+}
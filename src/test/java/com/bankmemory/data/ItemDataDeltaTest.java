@@ -0,0 +1,80 @@
+package com.bankmemory.data;
+
+import com.google.common.collect.ImmutableList;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ItemDataDeltaTest {
+
+    private static final ImmutableList<BankItem> BASE = ImmutableList.of(
+            new BankItem(995, 1000), new BankItem(4151, 1), new BankItem(385, 20), new BankItem(1127, 1));
+
+    @Test
+    public void testCreateThenApply_givenQuantityChanges_rebuildsItems() {
+        assertRoundTrip(ImmutableList.of(
+                new BankItem(995, 250), new BankItem(4151, 1), new BankItem(385, 35), new BankItem(1127, 1)));
+    }
+
+    @Test
+    public void testCreateThenApply_givenItemsRemoved_rebuildsItems() {
+        assertRoundTrip(ImmutableList.of(new BankItem(995, 1000), new BankItem(1127, 1)));
+    }
+
+    @Test
+    public void testCreateThenApply_givenItemsAdded_rebuildsItems() {
+        assertRoundTrip(ImmutableList.of(
+                new BankItem(11802, 1), new BankItem(995, 1000), new BankItem(4151, 1), new BankItem(2, 5000),
+                new BankItem(385, 20), new BankItem(1127, 1), new BankItem(560, 300)));
+    }
+
+    @Test
+    public void testCreateThenApply_givenNoChanges_rebuildsItems() {
+        assertRoundTrip(BASE);
+    }
+
+    @Test
+    public void testCreate_givenItemsReordered_returnsNull() {
+        ImmutableList<BankItem> items = ImmutableList.of(
+                new BankItem(4151, 1), new BankItem(995, 1000), new BankItem(385, 20), new BankItem(1127, 1));
+
+        assertThat(ItemDataDelta.create(BASE, "base", items), nullValue());
+    }
+
+    @Test
+    public void testCreate_givenDuplicateItemIds_returnsNull() {
+        ImmutableList<BankItem> items = ImmutableList.of(new BankItem(995, 1000), new BankItem(995, 1));
+
+        assertThat(ItemDataDelta.create(BASE, "base", items), nullValue());
+    }
+
+    @Test
+    public void testGetBaseContentHash() {
+        String delta = ItemDataDelta.create(BASE, "abc123", ImmutableList.of(new BankItem(995, 1)));
+
+        assertThat(ItemDataDelta.isDelta(delta), is(true));
+        assertThat(ItemDataDelta.getBaseContentHash(delta), is("abc123"));
+    }
+
+    @Test
+    public void testLazyItemData_givenStoredDelta_decodesFromBase() {
+        ImmutableList<BankItem> items = ImmutableList.of(new BankItem(995, 5), new BankItem(385, 20));
+        Map<String, String> stored = new HashMap<>();
+        stored.put("deltaTestBase", new ItemDataParser().toSaveString(BASE));
+        stored.put("deltaTestItems", ItemDataDelta.create(BASE, "deltaTestBase", items));
+
+        assertThat(LazyItemData.ofContentHash("deltaTestItems", stored::get).get(), is(items));
+    }
+
+    private static void assertRoundTrip(ImmutableList<BankItem> items) {
+        String delta = ItemDataDelta.create(BASE, "base", items);
+
+        assertThat(delta, notNullValue());
+        assertThat(ItemDataDelta.apply(BASE, delta), is(items));
+    }
+}
@@ -25,10 +25,24 @@ public class ItemDataParserTest {
         String tooFewNumbers = "301,";
         String extraNumber = "10,10,5,5,666,";
         String nonNumericCharacters = "10,10,spade,5,";
+        String emptyNumber = "10,,5,5,";
+        String leadingSeparator = ",10,5,";
+        String signWithoutDigits = "10,-,";
+        String numberTooBig = "2147483648,1,";
+        String binaryNotBase64 = "b1:!!!";
+        String binaryMissingItems = "b1:AQ";
+        String binaryUnknownVersion = "b9:AA";
         return new Object[][] {
                 { tooFewNumbers },
                 { extraNumber },
                 { nonNumericCharacters },
+                { emptyNumber },
+                { leadingSeparator },
+                { signWithoutDigits },
+                { numberTooBig },
+                { binaryNotBase64 },
+                { binaryMissingItems },
+                { binaryUnknownVersion },
         };
     }
 
@@ -65,12 +79,42 @@ public class ItemDataParserTest {
         assertEqualsAllWays(nonEmptyBankSaveString, bankItems);
     }
 
-    private void assertEqualsAllWays(String saveString, List<BankItem> bankItemList) {
+    @Test
+    public void testParseSaveString_givenLegacyFormatNumbersAtIntLimits() {
+        ItemDataParser parser = new ItemDataParser();
+
+        assertThat(parser.parseSaveString("-2147483648,2147483647,+7,-0,"), is(ImmutableList.of(
+                new BankItem(Integer.MIN_VALUE, Integer.MAX_VALUE), new BankItem(7, 0))));
+    }
+
+    @Test
+    public void testParseSaveStringAndToSaveStringMethods_givenIdsAndQuantitiesOfAllSizes() {
+        List<BankItem> bankItems = ImmutableList.of(
+                new BankItem(-1, 0), new BankItem(995, Integer.MAX_VALUE), new BankItem(4151, 1),
+                new BankItem(2, -5), new BankItem(Integer.MAX_VALUE, Integer.MIN_VALUE), new BankItem(0, 127));
+        assertEqualsAllWays(bankItems);
+    }
+
+    @Test
+    public void testToSaveString_writesBinaryFormat() {
+        ItemDataParser parser = new ItemDataParser();
+
+        assertThat(parser.toSaveString(ImmutableList.of(new BankItem(301, 1))), is("b1:AdoEAg"));
+    }
+
+    private void assertEqualsAllWays(String legacySaveString, List<BankItem> bankItemList) {
+        ItemDataParser parser = new ItemDataParser();
+
+        assertThat(parser.parseSaveString(legacySaveString), is(bankItemList));
+        assertThat(parser.parseSaveString(parser.toSaveString(parser.parseSaveString(legacySaveString))), is(bankItemList));
+        assertEqualsAllWays(bankItemList);
+    }
+
+    private void assertEqualsAllWays(List<BankItem> bankItemList) {
         ItemDataParser parser = new ItemDataParser();
 
-        assertThat(parser.parseSaveString(saveString), is(bankItemList));
-        assertThat(parser.toSaveString(bankItemList), is(saveString));
-        assertThat(parser.toSaveString(parser.parseSaveString(saveString)), is(saveString));
         assertThat(parser.parseSaveString(parser.toSaveString(bankItemList)), is(bankItemList));
+        assertThat(parser.toSaveString(parser.parseSaveString(parser.toSaveString(bankItemList))),
+                is(parser.toSaveString(bankItemList)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.bankmemory.data;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+public class ItemHoldingsIndexTest {
+
+    private static final BankSave SAVE_1 = new BankSave(BankWorldType.DEFAULT, "acc1", null, "Monday",
+            ImmutableList.of(new BankItem(995, 1000), new BankItem(4151, 1)));
+    private static final BankSave SAVE_2 = new BankSave(BankWorldType.DEFAULT, "acc2", null, "Monday",
+            ImmutableList.of(new BankItem(995, 20)));
+
+    @Test
+    public void testGetHoldings_givenSavesAdded_findsEverySaveHoldingItem() {
+        ItemHoldingsIndex index = new ItemHoldingsIndex();
+
+        index.addSave(SAVE_1);
+        index.addSave(SAVE_2);
+
+        assertThat(index.getHoldings(995), containsInAnyOrder(
+                new ItemHolding(SAVE_1.getId(), 1000), new ItemHolding(SAVE_2.getId(), 20)));
+        assertThat(index.getHoldings(4151), is(List.of(new ItemHolding(SAVE_1.getId(), 1))));
+        assertThat(index.getHoldings(385), is(List.of()));
+    }
+
+    @Test
+    public void testGetHoldings_givenItemInSaveTwice_holdsTotal() {
+        BankSave save = new BankSave(BankWorldType.DEFAULT, "acc1", null, "Monday",
+                ImmutableList.of(new BankItem(995, 10), new BankItem(4151, 1), new BankItem(995, 5)));
+        ItemHoldingsIndex index = new ItemHoldingsIndex();
+
+        index.addSave(save);
+
+        assertThat(index.getHoldings(995), is(List.of(new ItemHolding(save.getId(), 15))));
+    }
+
+    @Test
+    public void testGetHoldings_givenSaveRemoved_onlyFindsOtherSaves() {
+        ItemHoldingsIndex index = new ItemHoldingsIndex();
+        index.addSaves(List.of(SAVE_1, SAVE_2));
+
+        index.removeSave(SAVE_1);
+
+        assertThat(index.getHoldings(995), is(List.of(new ItemHolding(SAVE_2.getId(), 20))));
+        assertThat(index.getHoldings(4151), is(List.of()));
+    }
+}
@@ -2,6 +2,7 @@ package com.bankmemory.data;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Guice;
 import com.google.inject.testing.fieldbinder.Bind;
 import com.google.inject.testing.fieldbinder.BoundFieldModule;
@@ -17,9 +18,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -31,6 +34,7 @@ import static org.mockito.Mockito.when;
 public class PluginDataStoreTest {
 
     @Mock @Bind private ConfigReaderWriter configReaderWriter;
+    @Mock @Bind private BankJournal bankJournal;
 
     @Mock private DataStoreUpdateListener listener;
 
@@ -127,8 +131,129 @@ public class PluginDataStoreTest {
         verifyNoInteractions(listener);
     }
 
+    @Test
+    public void testSaveAsCurrentBank_recordsBankInJournal() {
+        PluginDataStore pluginDataStore = createPluginDataStore();
+        BankSave save = new BankSave(BankWorldType.DEFAULT, "acc", null, "Monday", ImmutableList.of());
+
+        pluginDataStore.saveAsCurrentBank(save);
+
+        verify(configReaderWriter).writeCurrentBanks(List.of(save));
+        verify(bankJournal).recordCurrentBank(save);
+    }
+
+    @Test
+    public void testGetDataForCurrentBank_afterNewCurrentBankSaved_returnsNewSaveIgnoringCase() {
+        BankSave oldSave = new BankSave(BankWorldType.DEFAULT, "Acc", null, "Monday", ImmutableList.of());
+        BankSave otherWorldSave = new BankSave(BankWorldType.DEADMAN, "acc", null, "Monday", ImmutableList.of());
+        when(configReaderWriter.readCurrentBanks()).thenReturn(list(oldSave, otherWorldSave));
+        PluginDataStore pluginDataStore = createPluginDataStore();
+        BankSave newSave = new BankSave(BankWorldType.DEFAULT, "acc", null, "Tuesday", ImmutableList.of());
+
+        pluginDataStore.saveAsCurrentBank(newSave);
+
+        assertThat(pluginDataStore.getDataForCurrentBank(BankWorldType.DEFAULT, "ACC"), is(Optional.of(newSave)));
+        assertThat(pluginDataStore.getDataForCurrentBank(BankWorldType.DEADMAN, "acc"), is(Optional.of(otherWorldSave)));
+        assertThat(pluginDataStore.getBankSaveWithId(newSave.getId()), is(Optional.of(newSave)));
+        assertThat(pluginDataStore.getBankSaveWithId(oldSave.getId()), is(Optional.empty()));
+        assertThat(pluginDataStore.getCurrentBanksList(), is(List.of(newSave, otherWorldSave)));
+    }
+
+    @Test
+    public void testGetCurrentBanksList_givenBankSavedAfterwards_returnedListIsUnchanged() {
+        BankSave oldSave = new BankSave(BankWorldType.DEFAULT, "acc", null, "Monday", ImmutableList.of());
+        when(configReaderWriter.readCurrentBanks()).thenReturn(list(oldSave));
+        PluginDataStore pluginDataStore = createPluginDataStore();
+        List<BankSave> banksBefore = pluginDataStore.getCurrentBanksList();
+
+        pluginDataStore.saveAsCurrentBank(new BankSave(BankWorldType.DEFAULT, "other", null, "Tuesday", ImmutableList.of()));
+
+        assertThat(banksBefore, is(List.of(oldSave)));
+        assertThat(pluginDataStore.getCurrentBanksList().size(), is(2));
+    }
+
+    @Test
+    public void testGetBankSaveWithId_afterSnapshotSavedAndDeleted_findsSavesThatExist() {
+        BankSave currentSave = new BankSave(BankWorldType.DEFAULT, "acc", null, "Monday", ImmutableList.of());
+        when(configReaderWriter.readCurrentBanks()).thenReturn(list(currentSave));
+        PluginDataStore pluginDataStore = createPluginDataStore();
+
+        pluginDataStore.saveAsSnapshotBank("snap", currentSave);
+        BankSave snapshot = pluginDataStore.getSnapshotBanksList().get(0);
+
+        assertThat(pluginDataStore.getBankSaveWithId(snapshot.getId()), is(Optional.of(snapshot)));
+        assertThat(pluginDataStore.getBankSaveWithId(currentSave.getId()), is(Optional.of(currentSave)));
+
+        pluginDataStore.deleteBankSaveWithId(currentSave.getId());
+
+        assertThat(pluginDataStore.getBankSaveWithId(currentSave.getId()), is(Optional.empty()));
+        assertThat(pluginDataStore.getDataForCurrentBank(BankWorldType.DEFAULT, "acc"), is(Optional.empty()));
+        assertThat(pluginDataStore.getBankSaveWithId(snapshot.getId()), is(Optional.of(snapshot)));
+    }
+
+    @Test
+    public void testGetDataForCurrentBank_afterSavesClaimedForNewAccountId_findsReclaimedSave() {
+        String oldStyleAccountId = "mylogin@whatever.com";
+        String newStyleAccountId = AccountIdentifier.fromAccountHash(123);
+        BankSave existingSave = new BankSave(BankWorldType.DEFAULT, oldStyleAccountId, null, "111", ImmutableList.of());
+        when(configReaderWriter.readNameMap()).thenReturn(Map.of(oldStyleAccountId, "SameUsername"));
+        when(configReaderWriter.readCurrentBanks()).thenReturn(list(existingSave));
+        PluginDataStore pluginDataStore = createPluginDataStore();
+
+        pluginDataStore.registerDisplayNameForAccountId(newStyleAccountId, "SameUsername");
+
+        BankSave reclaimedSave = pluginDataStore.getCurrentBanksList().get(0);
+        assertThat(pluginDataStore.getDataForCurrentBank(BankWorldType.DEFAULT, newStyleAccountId), is(Optional.of(reclaimedSave)));
+        assertThat(pluginDataStore.getDataForCurrentBank(BankWorldType.DEFAULT, oldStyleAccountId), is(Optional.empty()));
+        assertThat(pluginDataStore.getBankSaveWithId(reclaimedSave.getId()), is(Optional.of(reclaimedSave)));
+    }
+
+    @Test
+    public void testGetItemHoldings_afterSavesChanged_findsItemInSavesThatExist() {
+        BankSave oldSave = new BankSave(BankWorldType.DEFAULT, "acc", null, "Monday", ImmutableList.of(new BankItem(995, 10)));
+        BankSave otherAccountSave = new BankSave(BankWorldType.DEFAULT, "other", null, "Monday", ImmutableList.of(new BankItem(995, 7)));
+        when(configReaderWriter.readCurrentBanks()).thenReturn(list(oldSave, otherAccountSave));
+        PluginDataStore pluginDataStore = createPluginDataStore();
+        assertThat(pluginDataStore.getItemHoldings(995).size(), is(2));
+        BankSave newSave = new BankSave(BankWorldType.DEFAULT, "acc", null, "Tuesday", ImmutableList.of(new BankItem(995, 30)));
+
+        pluginDataStore.saveAsCurrentBank(newSave);
+        pluginDataStore.saveAsSnapshotBank("snap", newSave);
+        pluginDataStore.deleteBankSaveWithId(otherAccountSave.getId());
+
+        long snapshotId = pluginDataStore.getSnapshotBanksList().get(0).getId();
+        assertThat(pluginDataStore.getItemHoldings(995), containsInAnyOrder(
+                new ItemHolding(newSave.getId(), 30), new ItemHolding(snapshotId, 30)));
+    }
+
+    @Test
+    public void testGetBankAsOf_givenSnapshotNewerThanJournalState_returnsSnapshot() {
+        BankSave journalState = BankSave.fromHistory(BankWorldType.DEFAULT, "acc", 1000, ImmutableList.of());
+        BankSave snapshot = BankSave.snapshotFromExistingBank("snap",
+                BankSave.fromHistory(BankWorldType.DEFAULT, "Acc", 2000, ImmutableList.of(new BankItem(995, 1))));
+        BankSave tooNew = BankSave.fromHistory(BankWorldType.DEFAULT, "acc", 4000, ImmutableList.of());
+        when(configReaderWriter.readCurrentBanks()).thenReturn(Lists.newArrayList(tooNew));
+        when(configReaderWriter.readBankSnapshots()).thenReturn(Lists.newArrayList(snapshot));
+        when(bankJournal.findBankAt(BankWorldType.DEFAULT, "acc", 3000)).thenReturn(Optional.of(journalState));
+        PluginDataStore pluginDataStore = createPluginDataStore();
+
+        assertThat(pluginDataStore.getBankAsOf(BankWorldType.DEFAULT, "acc", 3000), is(Optional.of(snapshot)));
+    }
+
+    @Test
+    public void testGetBankAsOf_givenJournalStateNewest_returnsJournalState() {
+        BankSave journalState = BankSave.fromHistory(BankWorldType.DEFAULT, "acc", 2500, ImmutableList.of());
+        BankSave snapshot = BankSave.snapshotFromExistingBank("snap",
+                BankSave.fromHistory(BankWorldType.DEFAULT, "acc", 2000, ImmutableList.of()));
+        when(configReaderWriter.readBankSnapshots()).thenReturn(Lists.newArrayList(snapshot));
+        when(bankJournal.findBankAt(BankWorldType.DEFAULT, "acc", 3000)).thenReturn(Optional.of(journalState));
+        PluginDataStore pluginDataStore = createPluginDataStore();
+
+        assertThat(pluginDataStore.getBankAsOf(BankWorldType.DEFAULT, "acc", 3000), is(Optional.of(journalState)));
+    }
+
     private PluginDataStore createPluginDataStore() {
-        PluginDataStore pluginDataStore = new PluginDataStore(configReaderWriter);
+        PluginDataStore pluginDataStore = new PluginDataStore(configReaderWriter, bankJournal, MoreExecutors.newDirectExecutorService());
         pluginDataStore.addListener(listener);
         return pluginDataStore;
     }
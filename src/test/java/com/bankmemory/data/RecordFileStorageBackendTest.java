@@ -0,0 +1,139 @@
+package com.bankmemory.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RecordFileStorageBackendTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSetAndUnset_areReadBackFromFile() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "data/bank.dat");
+        RecordFileStorageBackend storage = new RecordFileStorageBackend(file);
+
+        storage.set("a", "first");
+        storage.set("b", "ünïcödé");
+        storage.set("a", "second");
+        storage.set("c", "gone soon");
+        storage.unset("c");
+
+        RecordFileStorageBackend reopened = new RecordFileStorageBackend(file);
+        assertThat(reopened.get("a"), is("second"));
+        assertThat(reopened.get("b"), is("ünïcödé"));
+        assertThat(reopened.get("c"), nullValue());
+        assertThat(reopened.getKeys().size(), is(2));
+    }
+
+    @Test
+    public void testRead_givenPartlyWrittenLastRecord_dropsItAndKeepsAppending() throws IOException {
+        File file = temporaryFolder.newFile();
+        RecordFileStorageBackend storage = new RecordFileStorageBackend(file);
+        storage.set("a", "kept");
+        long sizeBeforeLastRecord = file.length();
+        storage.set("b", "partly written");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 3);
+        }
+
+        RecordFileStorageBackend reopened = new RecordFileStorageBackend(file);
+        assertThat(reopened.get("a"), is("kept"));
+        assertThat(reopened.get("b"), nullValue());
+        assertThat(file.length(), is(sizeBeforeLastRecord));
+
+        reopened.set("c", "after");
+        assertThat(new RecordFileStorageBackend(file).get("c"), is("after"));
+    }
+
+    @Test
+    public void testRead_givenCorruptedRecord_ignoresRestOfFile() throws IOException {
+        File file = temporaryFolder.newFile();
+        RecordFileStorageBackend storage = new RecordFileStorageBackend(file);
+        storage.set("a", "kept");
+        long corruptPosition = file.length() + 12;
+        storage.set("b", "corrupted");
+        storage.set("c", "after corruption");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(corruptPosition);
+            raf.write('X');
+        }
+
+        RecordFileStorageBackend reopened = new RecordFileStorageBackend(file);
+        assertThat(reopened.getKeys(), is(List.of("a")));
+    }
+
+    @Test
+    public void testRead_givenNotADataFile_movesItAsideAndStartsEmpty() throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.writeString(file.toPath(), "not bank memory data");
+
+        RecordFileStorageBackend storage = new RecordFileStorageBackend(file);
+        assertThat(storage.getKeys().isEmpty(), is(true));
+        assertThat(Files.readString(new File(file.getPath() + ".unreadable").toPath()), is("not bank memory data"));
+
+        storage.set("a", "new");
+        assertThat(new RecordFileStorageBackend(file).get("a"), is("new"));
+    }
+
+    @Test
+    public void testClear_deletesFile() throws IOException {
+        File file = temporaryFolder.newFile();
+        RecordFileStorageBackend storage = new RecordFileStorageBackend(file);
+        storage.set("a", "value");
+
+        storage.clear();
+
+        assertThat(storage.getKeys().isEmpty(), is(true));
+        assertThat(file.exists(), is(false));
+        storage.set("b", "value");
+        assertThat(new RecordFileStorageBackend(file).getKeys(), is(List.of("b")));
+    }
+
+    @Test
+    public void testCompact_keepsOnlyCurrentData() throws IOException {
+        File file = temporaryFolder.newFile();
+        RecordFileStorageBackend storage = new RecordFileStorageBackend(file);
+        for (int i = 0; i < 100; i++) {
+            storage.set("a", "value " + i);
+            storage.set("b" + i, "value");
+            storage.unset("b" + i);
+        }
+        long sizeBefore = file.length();
+
+        storage.compact();
+        storage.set("c", "after compaction");
+
+        assertThat(file.length() < sizeBefore / 10, is(true));
+        assertThat(storage.getFileSize(), is(file.length()));
+        RecordFileStorageBackend reopened = new RecordFileStorageBackend(file);
+        assertThat(reopened.get("a"), is("value 99"));
+        assertThat(reopened.get("c"), is("after compaction"));
+        assertThat(reopened.getKeys().size(), is(2));
+    }
+
+    @Test
+    public void testCompact_givenClearedWhilstWritingCompactedFile_leavesDataCleared() throws IOException {
+        File file = temporaryFolder.newFile();
+        RecordFileStorageBackend storage = new RecordFileStorageBackend(file);
+        storage.set("a", "cleared");
+
+        storage.compact(() -> {
+            storage.clear();
+            storage.set("b", "after clear");
+        });
+
+        assertThat(storage.getKeys(), is(List.of("b")));
+        assertThat(new File(file.getPath() + ".tmp").exists(), is(false));
+        assertThat(new RecordFileStorageBackend(file).getKeys(), is(List.of("b")));
+    }
+}